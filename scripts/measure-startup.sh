@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Measures time-to-first-redirect and resident memory for one or more service images.
+#
+# Usage: scripts/measure-startup.sh <mode>=<image> [<mode>=<image> ...]
+#   e.g. scripts/measure-startup.sh \
+#          jvm=url-shortener:jvm cds=url-shortener:cds aot-cds=url-shortener:aot native=url-shortener:native
+#
+# For each image a fresh container is started next to throwaway Postgres and Redis containers. The clock
+# starts at `docker run` and stops at the first 302 from GET /{code}. RSS of PID 1 is sampled right after
+# the first redirect. Results are appended as JSON lines to target/startup-report.jsonl, and the medians
+# of this invocation are printed as a Markdown table at the end.
+set -euo pipefail
+
+RUNS=${RUNS:-3}
+NETWORK=url-shortener-startup
+REPORT=target/startup-report.jsonl
+mkdir -p target
+RESULTS=$(mktemp)
+
+cleanup() {
+  docker rm -f startup-app startup-postgres startup-redis >/dev/null 2>&1 || true
+  docker network rm "$NETWORK" >/dev/null 2>&1 || true
+  rm -f "$RESULTS"
+}
+trap cleanup EXIT
+cleanup
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --name startup-postgres --network "$NETWORK" \
+  -e POSTGRES_DB=url_shortener_db -e POSTGRES_USER=user -e POSTGRES_PASSWORD=password postgres:15-alpine >/dev/null
+docker run -d --name startup-redis --network "$NETWORK" redis:7-alpine >/dev/null
+until docker exec startup-postgres pg_isready -U user >/dev/null 2>&1; do sleep 0.5; done
+
+now_ms() { date +%s%3N; }
+
+for spec in "$@"; do
+  mode=${spec%%=*}
+  image=${spec#*=}
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    docker run -d --name startup-app --network "$NETWORK" -p 18080:8080 \
+      -e DB_HOST=startup-postgres -e REDIS_HOST=startup-redis -e SPRING_DATA_REDIS_HOST=startup-redis \
+      "$image" >/dev/null
+
+    code=""
+    until [ -n "$code" ]; do
+      body=$(curl -s -o - -w '\n%{http_code}' -H 'Content-Type: application/json' \
+        -d '{"longUrl":"https://www.example.com/startup-probe"}' http://localhost:18080/shorten || true)
+      if [ "$(tail -n1 <<<"$body")" = "201" ]; then
+        code=$(head -n1 <<<"$body" | sed 's#.*/##')
+      else
+        sleep 0.05
+      fi
+    done
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:18080/$code")" = "302" ]; do sleep 0.05; done
+    first_redirect_ms=$(( $(now_ms) - start ))
+
+    rss_kb=$(docker exec startup-app sh -c "awk '/VmRSS/ {print \$2}' /proc/1/status")
+    printf '{"mode":"%s","image":"%s","run":%d,"timeToFirstRedirectMs":%d,"rssKb":%d}\n' \
+      "$mode" "$image" "$run" "$first_redirect_ms" "$rss_kb" | tee -a "$REPORT"
+    echo "$mode $first_redirect_ms $rss_kb" >> "$RESULTS"
+
+    docker rm -f startup-app >/dev/null
+  done
+done
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+echo
+echo "| Mode | Time to first redirect (ms) | RSS (MiB) |"
+echo "|------|----------------------------:|----------:|"
+for spec in "$@"; do
+  mode=${spec%%=*}
+  ms=$(awk -v m="$mode" '$1 == m { print $2 }' "$RESULTS" | median)
+  rss=$(awk -v m="$mode" '$1 == m { print $3 }' "$RESULTS" | median)
+  echo "| $mode | $ms | $(( rss / 1024 )) |"
+done
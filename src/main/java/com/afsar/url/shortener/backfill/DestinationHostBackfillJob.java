@@ -0,0 +1,81 @@
+package com.afsar.url.shortener.backfill;
+
+import com.afsar.url.shortener.repository.UrlAdminRepository;
+import com.afsar.url.shortener.repository.UrlAdminRepository.BackfillBatch;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Fills {@code destination_host} on rows written before the column existed, walking the table in short-code
+ * order one small transaction per batch, with a pause between batches to leave room for foreground traffic.
+ * Archive index rows get the same treatment afterwards, block by block, reading hosts from the archived links.
+ * A pass that fills nothing means every writer already sets the column, and the job stops; until then it
+ * starts a new pass every {@code interval}, which catches rows written by instances still on the old version
+ * during a rolling deploy. Enable it on a single instance only.
+ */
+@Component
+@ConditionalOnProperty(name = "url-shortener.host-backfill.enabled", havingValue = "true")
+public class DestinationHostBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationHostBackfillJob.class);
+    private static final int BLOCKS_PER_BATCH = 16; // A few thousand index rows at the default block size
+
+    private final UrlAdminRepository urlAdminRepository;
+    private final UrlArchiveRepository urlArchiveRepository;
+
+    @Value("${url-shortener.host-backfill.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${url-shortener.host-backfill.pause:PT0.1S}")
+    private Duration pause;
+
+    private volatile boolean complete;
+
+    public DestinationHostBackfillJob(UrlAdminRepository urlAdminRepository, UrlArchiveRepository urlArchiveRepository) {
+        this.urlAdminRepository = urlAdminRepository;
+        this.urlArchiveRepository = urlArchiveRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.host-backfill.interval:PT10M}", initialDelayString = "PT1M")
+    public synchronized void run() throws InterruptedException {
+        if (complete) {
+            return;
+        }
+        long started = System.nanoTime();
+        long filled = 0;
+        String after = null;
+        do {
+            BackfillBatch batch = urlAdminRepository.backfillHosts(after, batchSize);
+            filled += batch.filled();
+            after = batch.lastShortCode();
+            if (after != null && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+        } while (after != null);
+
+        Long afterBlock = null;
+        do {
+            UrlArchiveRepository.BackfillBatch batch = urlArchiveRepository.backfillHosts(afterBlock, BLOCKS_PER_BATCH);
+            filled += batch.filled();
+            afterBlock = batch.lastBlockId();
+            if (afterBlock != null && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+        } while (afterBlock != null);
+
+        complete = filled == 0;
+        log.info("Destination host backfill pass filled {} rows in {} ms{}", filled,
+                (System.nanoTime() - started) / 1_000_000, complete ? "; backfill complete" : "");
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,74 @@
+package com.afsar.url.shortener.cache;
+
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.routing.RoutingTable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cache-side view of a short link: everything a redirect needs, fetched in a single Redis GET.
+ *
+ * @param longUrl              the redirect target
+ * @param expiresAtEpochSecond expiry as epoch seconds, or {@link #NO_EXPIRY}
+ * @param flags                bit set of {@code FLAG_*} redirect flags
+ * @param routing              compiled per-request routing, or {@code null} for a plain link
+ * @param version              the row's {@code version} when it was read, or 0 when unknown; a cache write never
+ *                             replaces an entry with a higher one
+ */
+public record CachedUrl(String longUrl, long expiresAtEpochSecond, int flags, RoutingTable routing, long version) {
+
+    public static final long NO_EXPIRY = 0L;
+
+    // Bit 0 is unused; existing cache entries never set it
+    public static final int FLAG_DISABLED = 1 << 1;
+    public static final int FLAG_DELETED = 1 << 2; // Tombstone: the link was deleted at this version
+
+    public CachedUrl(String longUrl, long expiresAtEpochSecond, int flags) {
+        this(longUrl, expiresAtEpochSecond, flags, null, 0);
+    }
+
+    public CachedUrl(String longUrl, long expiresAtEpochSecond, int flags, RoutingTable routing) {
+        this(longUrl, expiresAtEpochSecond, flags, routing, 0);
+    }
+
+    public static CachedUrl from(UrlMapping urlMapping) {
+        return new CachedUrl(urlMapping.getLongUrl(), toEpochSecond(urlMapping.getExpiresAt()),
+                urlMapping.isDisabled() ? FLAG_DISABLED : 0,
+                urlMapping.getRoutingRules() == null ? null : RoutingTable.compiled(urlMapping.getRoutingRules()),
+                urlMapping.getVersion());
+    }
+
+    public static CachedUrl tombstone(long version) {
+        return new CachedUrl("", NO_EXPIRY, FLAG_DELETED, null, version);
+    }
+
+    // expires_at is a zone-less LocalDateTime written in the JVM's default zone
+    public static long toEpochSecond(LocalDateTime expiresAt) {
+        return expiresAt == null ? NO_EXPIRY : expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    public boolean hasExpiry() {
+        return expiresAtEpochSecond != NO_EXPIRY;
+    }
+
+    public boolean isExpired(long nowEpochSecond) {
+        return hasExpiry() && expiresAtEpochSecond <= nowEpochSecond;
+    }
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * The redirect target for a request with these attributes: the routed target if a rule or default target
+     * applies, otherwise {@link #longUrl}.
+     */
+    public String targetFor(String userAgent, String acceptLanguage, String country) {
+        if (routing == null) {
+            return longUrl;
+        }
+        String target = routing.choose(userAgent, acceptLanguage, country);
+        return target != null ? target : longUrl;
+    }
+}
@@ -0,0 +1,192 @@
+package com.afsar.url.shortener.cache;
+
+import com.afsar.url.shortener.routing.RoutingTable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary layout for {@link CachedUrl} values stored in Redis.
+ * <pre>
+ *   byte 0      format version ({@link #VERSION}, {@link #VERSION_ROUTED} or {@link #VERSION_STAMPED})
+ *   byte 1      redirect flags
+ *   byte 2      prefix dictionary id (0 = none)
+ *   varint      link version ({@link #VERSION_STAMPED} only)
+ *   varint      expiry epoch seconds (unsigned LEB128, 0 = no expiry)
+ *   varint      routing JSON length, then its UTF-8 bytes ({@link #VERSION_ROUTED} always,
+ *               {@link #VERSION_STAMPED} with 0 for a plain link)
+ *   remaining   UTF-8 bytes of the URL after the dictionary prefix
+ * </pre>
+ * Values written with an unknown version decode to {@code null} so callers treat them as a cache miss
+ * and simply overwrite them on reload. Entries without a link version keep the version 1 and 2 layouts.
+ * The link version sits at a fixed offset so {@link UrlMappingCache}'s Lua scripts can compare it in Redis.
+ */
+public class CachedUrlCodec {
+
+    public static final byte VERSION = 1;
+    public static final byte VERSION_ROUTED = 2;
+    public static final byte VERSION_STAMPED = 3;
+
+    // Ids are part of the version 1 format: append new prefixes, never reorder or remove
+    private static final String[] PREFIXES = {
+            null,
+            "https://www.",
+            "http://www.",
+            "https://",
+            "http://",
+            "https://www.youtube.com/watch?v=",
+            "https://youtu.be/",
+            "https://github.com/",
+            "https://docs.google.com/",
+            "https://drive.google.com/",
+            "https://www.amazon.com/",
+            "https://www.linkedin.com/",
+            "https://twitter.com/",
+            "https://x.com/",
+            "https://www.facebook.com/",
+            "https://www.instagram.com/"
+    };
+
+    private static final byte[][] PREFIX_BYTES = new byte[PREFIXES.length][];
+
+    static {
+        for (int i = 1; i < PREFIXES.length; i++) {
+            PREFIX_BYTES[i] = PREFIXES[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final int HEADER_LENGTH = 3;
+
+    private final boolean prefixCompression;
+
+    public CachedUrlCodec(boolean prefixCompression) {
+        this.prefixCompression = prefixCompression;
+    }
+
+    public byte[] encode(CachedUrl cachedUrl) {
+        String longUrl = cachedUrl.longUrl();
+        int prefixId = prefixCompression ? longestPrefix(longUrl) : 0;
+        byte[] suffix = longUrl.substring(prefixId == 0 ? 0 : PREFIXES[prefixId].length())
+                .getBytes(StandardCharsets.UTF_8);
+        long expiry = cachedUrl.expiresAtEpochSecond();
+        byte[] routing = cachedUrl.routing() == null ? null : cachedUrl.routing().toJson().getBytes(StandardCharsets.UTF_8);
+        int routingLength = routing == null ? 0 : routing.length;
+        long version = cachedUrl.version();
+        byte format = version != 0 ? VERSION_STAMPED : routing == null ? VERSION : VERSION_ROUTED;
+        int routingSize = format == VERSION ? 0 : varLongSize(routingLength) + routingLength;
+
+        byte[] out = new byte[HEADER_LENGTH + (format == VERSION_STAMPED ? varLongSize(version) : 0)
+                + varLongSize(expiry) + routingSize + suffix.length];
+        out[0] = format;
+        out[1] = (byte) cachedUrl.flags();
+        out[2] = (byte) prefixId;
+        int pos = HEADER_LENGTH;
+        if (format == VERSION_STAMPED) {
+            pos = writeVarLong(out, pos, version);
+        }
+        pos = writeVarLong(out, pos, expiry);
+        if (format != VERSION) {
+            pos = writeVarLong(out, pos, routingLength);
+            if (routingLength > 0) {
+                System.arraycopy(routing, 0, out, pos, routingLength);
+                pos += routingLength;
+            }
+        }
+        System.arraycopy(suffix, 0, out, pos, suffix.length);
+        return out;
+    }
+
+    public CachedUrl decode(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_LENGTH + 1
+                || (bytes[0] != VERSION && bytes[0] != VERSION_ROUTED && bytes[0] != VERSION_STAMPED)) {
+            return null;
+        }
+        int flags = bytes[1] & 0xFF;
+        int prefixId = bytes[2] & 0xFF;
+        if (prefixId >= PREFIXES.length) {
+            return null;
+        }
+
+        int[] cursor = {HEADER_LENGTH};
+        long version = bytes[0] == VERSION_STAMPED ? readVarLong(bytes, cursor) : 0;
+        long expiry = readVarLong(bytes, cursor);
+        if (version < 0 || expiry < 0) {
+            return null;
+        }
+        RoutingTable routing = null;
+        if (bytes[0] != VERSION) {
+            long routingLength = readVarLong(bytes, cursor);
+            if (routingLength < 0 || routingLength > bytes.length - cursor[0]) {
+                return null;
+            }
+            if (routingLength > 0) {
+                try {
+                    // Compiled once per distinct routing and shared, not re-parsed on every read
+                    routing = RoutingTable.compiled(new String(bytes, cursor[0], (int) routingLength, StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+                cursor[0] += (int) routingLength;
+            }
+        }
+        int pos = cursor[0];
+
+        String longUrl;
+        if (prefixId == 0) {
+            longUrl = new String(bytes, pos, bytes.length - pos, StandardCharsets.UTF_8);
+        } else {
+            byte[] prefix = PREFIX_BYTES[prefixId];
+            byte[] full = new byte[prefix.length + bytes.length - pos];
+            System.arraycopy(prefix, 0, full, 0, prefix.length);
+            System.arraycopy(bytes, pos, full, prefix.length, bytes.length - pos);
+            longUrl = new String(full, StandardCharsets.UTF_8);
+        }
+        return new CachedUrl(longUrl, expiry, flags, routing, version);
+    }
+
+    // Returns -1 for a truncated or overlong varint
+    private static long readVarLong(byte[] bytes, int[] cursor) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (cursor[0] >= bytes.length || shift > 63) {
+                return -1;
+            }
+            b = bytes[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int longestPrefix(String longUrl) {
+        int best = 0;
+        int bestLength = 0;
+        for (int i = 1; i < PREFIXES.length; i++) {
+            String prefix = PREFIXES[i];
+            if (prefix.length() > bestLength && longUrl.startsWith(prefix)) {
+                best = i;
+                bestLength = prefix.length();
+            }
+        }
+        return best;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarLong(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+}
@@ -0,0 +1,27 @@
+package com.afsar.url.shortener.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+public class CachedUrlRedisSerializer implements RedisSerializer<CachedUrl> {
+
+    private final CachedUrlCodec codec;
+
+    public CachedUrlRedisSerializer(CachedUrlCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(CachedUrl value) {
+        return value == null ? null : codec.encode(value);
+    }
+
+    @Override
+    public CachedUrl deserialize(byte[] bytes) {
+        return codec.decode(bytes);
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return CachedUrl.class;
+    }
+}
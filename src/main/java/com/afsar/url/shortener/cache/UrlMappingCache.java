@@ -0,0 +1,235 @@
+package com.afsar.url.shortener.cache;
+
+import com.afsar.url.shortener.config.RedisConfig;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis-backed cache of short code to {@link CachedUrl}, stored with {@link CachedUrlCodec}.
+ * Entries never outlive the link they describe.
+ * <p>
+ * Writes are conditional on the link version carried in the value: an entry is never replaced by one with a
+ * lower version, so a redirect that read the row just before a PATCH or DELETE cannot put the old target back
+ * after the mutation has cached the new one. Deletes leave a short-lived tombstone for the same reason.
+ */
+@Component
+public class UrlMappingCache {
+
+    private static final String KEY_PREFIX = "url:";
+
+    // Link version of an encoded value: the varint after the 3-byte header of a VERSION_STAMPED entry, else 0
+    private static final String VERSION_OF = """
+            local function version(value)
+              if not value or string.byte(value, 1) ~= %d then return 0 end
+              local n, scale, i = 0, 1, 4
+              repeat
+                local b = string.byte(value, i)
+                if not b then return 0 end
+                n = n + (b %% 128) * scale
+                scale = scale * 128
+                i = i + 1
+              until b < 128
+              return n
+            end
+            """.formatted(CachedUrlCodec.VERSION_STAMPED);
+
+    private static final RedisScript<Long> SET_UNLESS_NEWER = new DefaultRedisScript<>(VERSION_OF + """
+            if version(redis.call('GET', KEYS[1])) > version(ARGV[1]) then return 0 end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // A tombstone does not hold the code: a re-created link may claim it
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current and not (string.byte(current, 1) == %d and math.floor(string.byte(current, 2) / %d) %% 2 == 1) then
+              return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """.formatted(CachedUrlCodec.VERSION_STAMPED, CachedUrl.FLAG_DELETED), Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, CachedUrl> cachedUrlRedisTemplate;
+    private final RedisTemplate<String, CachedUrl> cacheReadRedisTemplate;
+    private final boolean readsReplicas;
+
+    @Value("${url-shortener.cache.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${url-shortener.cache.tombstone-ttl:10m}")
+    private Duration tombstoneTtl;
+
+    public UrlMappingCache(@Qualifier("cachedUrlRedisTemplate") RedisTemplate<String, CachedUrl> cachedUrlRedisTemplate,
+                           @Qualifier("cacheReadRedisTemplate") RedisTemplate<String, CachedUrl> cacheReadRedisTemplate,
+                           @Value("${url-shortener.redis.cache-read-from:UPSTREAM}") String cacheReadFrom) {
+        this.cachedUrlRedisTemplate = cachedUrlRedisTemplate;
+        this.cacheReadRedisTemplate = cacheReadRedisTemplate;
+        this.readsReplicas = RedisConfig.readsReplicas(cacheReadFrom);
+    }
+
+    /**
+     * Reads through {@code url-shortener.redis.cache-read-from}. A replica may not have a fresh write yet, and
+     * under write-behind the cache is the only place a new link is visible cluster-wide before it is flushed, so
+     * a replica miss is retried on the primary before the caller falls back to the database.
+     */
+    public CachedUrl get(String shortCode) {
+        CachedUrl cached = cacheReadRedisTemplate.opsForValue().get(KEY_PREFIX + shortCode);
+        if (cached == null && readsReplicas) {
+            cached = cachedUrlRedisTemplate.opsForValue().get(KEY_PREFIX + shortCode);
+        }
+        return cached;
+    }
+
+    /**
+     * Caches the entry unless the cache already holds a higher version of the link. Returns {@code false} when
+     * the write was rejected as stale.
+     */
+    public boolean put(String shortCode, CachedUrl cachedUrl) {
+        Duration entryTtl = entryTtl(cachedUrl);
+        if (entryTtl == null) {
+            return true; // Already expired, nothing worth caching
+        }
+        return execute(SET_UNLESS_NEWER, shortCode, cachedUrl, entryTtl);
+    }
+
+    /**
+     * Caches the entry only if the code has no entry yet, or only a tombstone. Returns {@code false} when the code
+     * is already cached, which makes this usable as a cluster-wide claim on the code.
+     */
+    public boolean putIfAbsent(String shortCode, CachedUrl cachedUrl) {
+        Duration entryTtl = entryTtl(cachedUrl);
+        if (entryTtl == null) {
+            return true;
+        }
+        return execute(CLAIM, shortCode, cachedUrl, entryTtl);
+    }
+
+    /**
+     * Replaces the entry with a tombstone at {@code version}, so reloads of the deleted row that are still in
+     * flight are rejected. The tombstone expires after {@code url-shortener.cache.tombstone-ttl}.
+     */
+    public boolean putTombstone(String shortCode, long version) {
+        return execute(SET_UNLESS_NEWER, shortCode, CachedUrl.tombstone(version), tombstoneTtl);
+    }
+
+    /**
+     * {@link #put} for many entries at once. Outside cluster mode the writes go out as one pipeline, so a batch
+     * costs one round trip; in a cluster the keys span nodes and are written one by one.
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<String, CachedUrl> cachedUrls) {
+        RedisSerializer<CachedUrl> serializer = (RedisSerializer<CachedUrl>) cachedUrlRedisTemplate.getValueSerializer();
+        byte[] script = SET_UNLESS_NEWER.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        cachedUrlRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            boolean pipelined = !(connection instanceof RedisClusterConnection);
+            if (pipelined) {
+                connection.openPipeline();
+            }
+            cachedUrls.forEach((shortCode, cachedUrl) -> {
+                Duration entryTtl = entryTtl(cachedUrl);
+                if (entryTtl != null) {
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                            (KEY_PREFIX + shortCode).getBytes(StandardCharsets.UTF_8), serializer.serialize(cachedUrl),
+                            Long.toString(entryTtl.toMillis()).getBytes(StandardCharsets.US_ASCII));
+                }
+            });
+            if (pipelined) {
+                connection.closePipeline();
+            }
+            return null;
+        });
+    }
+
+    public void evict(String shortCode) {
+        cachedUrlRedisTemplate.delete(KEY_PREFIX + shortCode);
+    }
+
+    /**
+     * {@link #put}, then blocks until {@code replicas} replicas have acknowledged the write or {@code timeout}
+     * passes (Redis {@code WAIT}). Returns the number that acknowledged, or {@code replicas} when the write was
+     * rejected as stale or not needed and there is nothing of this caller's to wait for.
+     */
+    public long putAndAwait(String shortCode, CachedUrl cachedUrl, int replicas, Duration timeout) {
+        Duration entryTtl = entryTtl(cachedUrl);
+        if (entryTtl == null) {
+            return replicas;
+        }
+        return executeAndAwait(SET_UNLESS_NEWER, shortCode, cachedUrl, entryTtl, replicas, timeout);
+    }
+
+    /**
+     * {@link #putTombstone}, then waits for replicas as {@link #putAndAwait} does.
+     */
+    public long putTombstoneAndAwait(String shortCode, long version, int replicas, Duration timeout) {
+        return executeAndAwait(SET_UNLESS_NEWER, shortCode, CachedUrl.tombstone(version), tombstoneTtl, replicas, timeout);
+    }
+
+    // WAIT only counts writes made on its own connection, so the script and the WAIT must share one. Outside a
+    // cluster both go to the primary over the callback's connection; in a cluster, routing by key does not promise
+    // the same node connection twice, so both run on the key's primary through the node connection Lettuce keeps.
+    @SuppressWarnings("unchecked")
+    private long executeAndAwait(RedisScript<Long> script, String shortCode, CachedUrl cachedUrl, Duration entryTtl,
+                                 int replicas, Duration timeout) {
+        byte[] source = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[] key = (KEY_PREFIX + shortCode).getBytes(StandardCharsets.UTF_8);
+        byte[] value = ((RedisSerializer<CachedUrl>) cachedUrlRedisTemplate.getValueSerializer()).serialize(cachedUrl);
+        byte[] px = Long.toString(entryTtl.toMillis()).getBytes(StandardCharsets.US_ASCII);
+        Long acknowledged = cachedUrlRedisTemplate.execute((RedisCallback<Long>) connection -> {
+            if (connection instanceof RedisClusterConnection cluster) {
+                String primary = cluster.clusterGetNodeForKey(key).getId();
+                RedisCommands<byte[], byte[]> node = ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) cluster.getNativeConnection())
+                        .getStatefulConnection().getConnection(primary).sync();
+                Long written = node.eval(source, ScriptOutputType.INTEGER, new byte[][]{key}, value, px);
+                return written != null && written == 1 ? node.waitForReplication(replicas, timeout.toMillis()) : replicas;
+            }
+            Long written = connection.scriptingCommands().eval(source, ReturnType.INTEGER, 1, key, value, px);
+            if (written == null || written != 1) {
+                return (long) replicas;
+            }
+            Object reply = connection.execute("WAIT", Integer.toString(replicas).getBytes(StandardCharsets.US_ASCII),
+                    Long.toString(timeout.toMillis()).getBytes(StandardCharsets.US_ASCII));
+            return reply instanceof Number number ? number.longValue() : 0L;
+        });
+        return acknowledged == null ? 0 : acknowledged;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean execute(RedisScript<Long> script, String shortCode, CachedUrl cachedUrl, Duration entryTtl) {
+        byte[] value = ((RedisSerializer<CachedUrl>) cachedUrlRedisTemplate.getValueSerializer()).serialize(cachedUrl);
+        Long result = cachedUrlRedisTemplate.execute(script, RedisSerializer.byteArray(), LONG_RESULT,
+                List.of(KEY_PREFIX + shortCode), value,
+                Long.toString(entryTtl.toMillis()).getBytes(StandardCharsets.US_ASCII));
+        return result != null && result == 1;
+    }
+
+    private Duration entryTtl(CachedUrl cachedUrl) {
+        if (!cachedUrl.hasExpiry()) {
+            return ttl;
+        }
+        Duration untilExpiry = Duration.ofSeconds(cachedUrl.expiresAtEpochSecond() - Instant.now().getEpochSecond());
+        if (untilExpiry.isNegative() || untilExpiry.isZero()) {
+            return null;
+        }
+        return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+    }
+}
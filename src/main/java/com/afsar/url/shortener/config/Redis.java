@@ -1,16 +1,69 @@
 package com.afsar.url.shortener.config;
 
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.CachedUrlCodec;
+import com.afsar.url.shortener.cache.CachedUrlRedisSerializer;
+import com.afsar.url.shortener.service.AliasAvailabilityService;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisConnectionDetails;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.cache.annotation.EnableCaching;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redis wiring for standalone, static primary/replica, Sentinel and Cluster deployments. The topology comes
+ * from the standard {@code spring.data.redis.*} properties ({@code cluster.nodes}, {@code sentinel.*}, or
+ * {@code host}/{@code port} plus {@code url-shortener.redis.replicas}).
+ * <p>
+ * Two connection factories are built from it. The primary one reads and writes the primaries and backs
+ * everything that needs read-your-writes (idempotency keys, alias reservations, cache writes, pub/sub). Redirect
+ * cache reads go through a second factory using {@code url-shortener.redis.cache-read-from}, the primaries by
+ * default; when that reads replicas, a replica miss is retried on the primary (see
+ * {@link com.afsar.url.shortener.cache.UrlMappingCache#get}).
+ */
 @Configuration
-@EnableCaching
 public class RedisConfig {
 
+    @Bean
+    @Primary
+    public LettuceConnectionFactory redisConnectionFactory(RedisConnectionDetails connectionDetails, RedisProperties properties,
+                                                           ClientResources clientResources,
+                                                           @Value("${url-shortener.redis.replicas:}") List<String> replicas) {
+        return new LettuceConnectionFactory(redisConfiguration(connectionDetails, replicas),
+                clientConfiguration(properties, clientResources, ReadFrom.UPSTREAM));
+    }
+
+    @Bean
+    public LettuceConnectionFactory cacheReadConnectionFactory(RedisConnectionDetails connectionDetails, RedisProperties properties,
+                                                               ClientResources clientResources,
+                                                               @Value("${url-shortener.redis.replicas:}") List<String> replicas,
+                                                               @Value("${url-shortener.redis.cache-read-from:UPSTREAM}") String readFrom) {
+        return new LettuceConnectionFactory(redisConfiguration(connectionDetails, replicas),
+                clientConfiguration(properties, clientResources, ReadFrom.valueOf(readFrom)));
+    }
+
     @Bean
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
@@ -19,4 +72,114 @@ public class RedisConfig {
         template.setValueSerializer(new StringRedisSerializer());
         return template;
     }
+
+    @Bean
+    public RedisTemplate<String, CachedUrl> cachedUrlRedisTemplate(
+            RedisConnectionFactory connectionFactory,
+            @Value("${url-shortener.cache.prefix-compression:true}") boolean prefixCompression) {
+        return cachedUrlTemplate(connectionFactory, prefixCompression);
+    }
+
+    @Bean
+    public RedisTemplate<String, CachedUrl> cacheReadRedisTemplate(
+            @Qualifier("cacheReadConnectionFactory") RedisConnectionFactory connectionFactory,
+            @Value("${url-shortener.cache.prefix-compression:true}") boolean prefixCompression) {
+        return cachedUrlTemplate(connectionFactory, prefixCompression);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory, AliasAvailabilityService aliasAvailabilityService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(aliasAvailabilityService, new ChannelTopic(AliasAvailabilityService.TAKEN_CODES_CHANNEL));
+        return container;
+    }
+
+    /**
+     * Whether a {@code url-shortener.redis.cache-read-from} value may send reads to a replica, which can lag
+     * behind the primary.
+     */
+    public static boolean readsReplicas(String readFrom) {
+        ReadFrom parsed = ReadFrom.valueOf(readFrom);
+        return parsed != ReadFrom.UPSTREAM && parsed != ReadFrom.MASTER;
+    }
+
+    private static RedisTemplate<String, CachedUrl> cachedUrlTemplate(RedisConnectionFactory connectionFactory,
+                                                                      boolean prefixCompression) {
+        RedisTemplate<String, CachedUrl> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new CachedUrlRedisSerializer(new CachedUrlCodec(prefixCompression)));
+        return template;
+    }
+
+    static RedisConfiguration redisConfiguration(RedisConnectionDetails connectionDetails, List<String> replicas) {
+        RedisPassword password = RedisPassword.of(connectionDetails.getPassword());
+        if (connectionDetails.getCluster() != null) {
+            RedisClusterConfiguration cluster = new RedisClusterConfiguration();
+            connectionDetails.getCluster().getNodes().forEach(node -> cluster.clusterNode(node.host(), node.port()));
+            cluster.setUsername(connectionDetails.getUsername());
+            cluster.setPassword(password);
+            return cluster;
+        }
+        if (connectionDetails.getSentinel() != null) {
+            RedisConnectionDetails.Sentinel sentinel = connectionDetails.getSentinel();
+            RedisSentinelConfiguration configuration = new RedisSentinelConfiguration();
+            configuration.master(sentinel.getMaster());
+            sentinel.getNodes().forEach(node -> configuration.sentinel(node.host(), node.port()));
+            configuration.setDatabase(sentinel.getDatabase());
+            configuration.setUsername(connectionDetails.getUsername());
+            configuration.setPassword(password);
+            configuration.setSentinelUsername(sentinel.getUsername());
+            configuration.setSentinelPassword(RedisPassword.of(sentinel.getPassword()));
+            return configuration;
+        }
+        RedisConnectionDetails.Standalone standalone = connectionDetails.getStandalone();
+        if (!replicas.isEmpty()) {
+            // Fixed primary and replica endpoints without Sentinel, e.g. a managed service's reader endpoints
+            RedisStaticMasterReplicaConfiguration configuration =
+                    new RedisStaticMasterReplicaConfiguration(standalone.getHost(), standalone.getPort());
+            for (String replica : replicas) {
+                int colon = replica.lastIndexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("Redis replica must be host:port, got: " + replica);
+                }
+                configuration.node(replica.substring(0, colon), Integer.parseInt(replica.substring(colon + 1)));
+            }
+            configuration.setDatabase(standalone.getDatabase());
+            configuration.setUsername(connectionDetails.getUsername());
+            configuration.setPassword(password);
+            return configuration;
+        }
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(standalone.getHost(), standalone.getPort());
+        configuration.setDatabase(standalone.getDatabase());
+        configuration.setUsername(connectionDetails.getUsername());
+        configuration.setPassword(password);
+        return configuration;
+    }
+
+    private static LettuceClientConfiguration clientConfiguration(RedisProperties properties, ClientResources clientResources,
+                                                                  ReadFrom readFrom) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .clientResources(clientResources)
+                .readFrom(readFrom)
+                // Follow failovers and slot migrations promptly instead of riding out MOVED/ASK redirects
+                .clientOptions(ClusterClientOptions.builder()
+                        .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                                .enableAllAdaptiveRefreshTriggers()
+                                .enablePeriodicRefresh(Duration.ofSeconds(30))
+                                .build())
+                        .build());
+        if (properties.getTimeout() != null) {
+            builder.commandTimeout(properties.getTimeout());
+        }
+        if (properties.getClientName() != null) {
+            builder.clientName(properties.getClientName());
+        }
+        if (properties.getSsl().isEnabled()) {
+            builder.useSsl();
+        }
+        return builder.build();
+    }
 }
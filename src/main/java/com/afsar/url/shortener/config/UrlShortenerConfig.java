@@ -0,0 +1,21 @@
+package com.afsar.url.shortener.config;
+
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.List;
+
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class UrlShortenerConfig {
+
+    @Bean
+    public UrlCanonicalizer urlCanonicalizer(@Value("${url-shortener.blocked-hosts:}") List<String> blockedHosts) {
+        return new UrlCanonicalizer(blockedHosts);
+    }
+}
@@ -0,0 +1,55 @@
+package com.afsar.url.shortener.controller;
+
+import com.afsar.url.shortener.dto.AliasAvailabilityResponse;
+import com.afsar.url.shortener.dto.AliasReservationResponse;
+import com.afsar.url.shortener.service.AliasAvailabilityService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Vanity alias checks for the shorten form. Everything here is answered from memory; only a reservation
+ * touches Redis.
+ */
+@RestController
+@RequestMapping("/aliases")
+public class AliasController {
+
+    private final AliasAvailabilityService aliasAvailabilityService;
+
+    public AliasController(AliasAvailabilityService aliasAvailabilityService) {
+        this.aliasAvailabilityService = aliasAvailabilityService;
+    }
+
+    @GetMapping("/{alias}/availability")
+    public ResponseEntity<?> checkAvailability(@PathVariable String alias,
+                                               @RequestParam(defaultValue = "5") int suggestions) {
+        if (alias.length() > AliasAvailabilityService.MAX_SHORT_CODE_LENGTH) {
+            return ResponseEntity.badRequest().body("Alias is longer than " + AliasAvailabilityService.MAX_SHORT_CODE_LENGTH + " characters.");
+        }
+        boolean available = aliasAvailabilityService.isAvailable(alias);
+        List<String> alternatives = available ? List.of() : aliasAvailabilityService.suggest(alias, suggestions);
+        return ResponseEntity.ok(new AliasAvailabilityResponse(alias, available, alternatives));
+    }
+
+    @GetMapping("/{alias}/suggestions")
+    public ResponseEntity<List<String>> suggest(@PathVariable String alias,
+                                                @RequestParam(defaultValue = "5") int count) {
+        return ResponseEntity.ok(aliasAvailabilityService.suggest(alias, count));
+    }
+
+    @PostMapping("/{alias}/reservations")
+    public ResponseEntity<?> reserve(@PathVariable String alias) {
+        if (alias.length() > AliasAvailabilityService.MAX_SHORT_CODE_LENGTH) {
+            return ResponseEntity.badRequest().body("Alias is longer than " + AliasAvailabilityService.MAX_SHORT_CODE_LENGTH + " characters.");
+        }
+        String token = aliasAvailabilityService.reserve(alias);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Alias '" + alias + "' is taken or reserved.");
+        }
+        long ttlSeconds = aliasAvailabilityService.getReservationTtl().toSeconds();
+        return ResponseEntity.status(HttpStatus.CREATED).body(new AliasReservationResponse(alias, token, ttlSeconds));
+    }
+}
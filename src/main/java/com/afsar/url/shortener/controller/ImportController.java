@@ -0,0 +1,56 @@
+package com.afsar.url.shortener.controller;
+
+import com.afsar.url.shortener.dto.ImportRequest;
+import com.afsar.url.shortener.importer.BulkImporter;
+import com.afsar.url.shortener.importer.ImportIssue;
+import com.afsar.url.shortener.importer.ImportStatus;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Bulk migration of existing links. Imports run in the background; poll the status and page through the
+ * issues (invalid lines and short-code conflicts) by line number.
+ */
+@RestController
+@RequestMapping("/admin/imports")
+@ConditionalOnProperty(name = "url-shortener.import.enabled", havingValue = "true")
+public class ImportController {
+
+    private static final int MAX_ISSUES_PER_PAGE = 10_000;
+
+    private final BulkImporter bulkImporter;
+
+    public ImportController(BulkImporter bulkImporter) {
+        this.bulkImporter = bulkImporter;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> startImport(@Valid @RequestBody ImportRequest request) {
+        try {
+            ImportStatus status = bulkImporter.start(request.getImportId(), request.getFile(), request.getFormat());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportStatus> getStatus(@PathVariable String importId) {
+        ImportStatus status = bulkImporter.getStatus(importId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/{importId}/issues")
+    public ResponseEntity<List<ImportIssue>> getIssues(@PathVariable String importId,
+                                                       @RequestParam(defaultValue = "0") long afterLine,
+                                                       @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(bulkImporter.getIssues(importId, afterLine, Math.clamp(limit, 1, MAX_ISSUES_PER_PAGE)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.afsar.url.shortener.controller;
+
+import com.afsar.url.shortener.dto.HostDisableReport;
+import com.afsar.url.shortener.repository.UrlAdminRepository.MappingFilter;
+import com.afsar.url.shortener.service.MappingAdminService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * Finds links by destination host and creation time. {@code GET /admin/mappings} pages with an opaque cursor;
+ * {@code GET /admin/mappings/export} streams every match as NDJSON. {@code POST /admin/hosts/{host}/disable}
+ * disables every link to a host.
+ */
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(name = "url-shortener.admin.enabled", havingValue = "true")
+public class MappingAdminController {
+
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final MappingAdminService mappingAdminService;
+
+    public MappingAdminController(MappingAdminService mappingAdminService) {
+        this.mappingAdminService = mappingAdminService;
+    }
+
+    @GetMapping("/mappings")
+    public ResponseEntity<?> findMappings(@RequestParam(required = false) String host,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        try {
+            MappingFilter filter = MappingAdminService.filter(host, createdFrom, createdTo);
+            return ResponseEntity.ok(mappingAdminService.page(filter, cursor, Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/mappings/export")
+    public ResponseEntity<?> exportMappings(@RequestParam(required = false) String host,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        MappingFilter filter;
+        try {
+            filter = MappingAdminService.filter(host, createdFrom, createdTo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        StreamingResponseBody body = out -> mappingAdminService.export(filter, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping("/hosts/{host}/disable")
+    public ResponseEntity<?> disableHost(@PathVariable String host) {
+        try {
+            HostDisableReport report = mappingAdminService.disableHost(host);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.afsar.url.shortener.controller;
+
+import com.afsar.url.shortener.dto.MappingResponse;
+import com.afsar.url.shortener.dto.UpdateMappingRequest;
+import com.afsar.url.shortener.exception.UrlNotFoundException;
+import com.afsar.url.shortener.exception.VersionMismatchException;
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.service.UrlShortenerService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Reads and changes existing links. Every change bumps the link's version, returned as the ETag; send it back
+ * in {@code If-Match} to apply a change only if nobody else changed the link first.
+ */
+@RestController
+@RequestMapping("/mappings")
+public class MappingController {
+
+    private final UrlShortenerService urlShortenerService;
+
+    public MappingController(UrlShortenerService urlShortenerService) {
+        this.urlShortenerService = urlShortenerService;
+    }
+
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<?> getMapping(@PathVariable String shortCode) {
+        try {
+            UrlMapping mapping = urlShortenerService.getMapping(shortCode);
+            return ResponseEntity.ok().eTag(Long.toString(mapping.getVersion())).body(MappingResponse.from(mapping));
+        } catch (UrlNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @PatchMapping("/{shortCode}")
+    public ResponseEntity<?> updateMapping(@PathVariable String shortCode, @RequestBody UpdateMappingRequest request,
+                                           @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            UrlMapping mapping = urlShortenerService.updateMapping(shortCode, request.getLongUrl(),
+                    request.getExpirationMinutes(), request.getDisabled(), parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(Long.toString(mapping.getVersion())).body(MappingResponse.from(mapping));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UrlNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(Long.toString(e.getCurrentVersion())).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{shortCode}")
+    public ResponseEntity<?> deleteMapping(@PathVariable String shortCode,
+                                           @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            urlShortenerService.deleteMapping(shortCode, parseVersion(ifMatch));
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UrlNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(Long.toString(e.getCurrentVersion())).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Accepts the ETag as sent back, quoted or not; "*" matches any version
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+            version = version.substring(1, version.length() - 1);
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a version returned as an ETag, got: " + ifMatch);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.afsar.url.shortener.dto.ShortenRequest;
 import com.afsar.url.shortener.exception.ShortCodeAlreadyExistsException;
 import com.afsar.url.shortener.exception.UrlNotFoundException;
 import com.afsar.urlshortener.model.UrlMapping;
+import com.afsar.url.shortener.service.IdempotencyService;
 import com.afsar.url.shortener.service.UrlShortenerService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,21 +21,46 @@ import java.net.URI;
 public class UrlShortenerController {
 
     private final UrlShortenerService urlShortenerService;
+    private final IdempotencyService idempotencyService;
 
     @Value("${url-shortener.base-url}")
     private String baseUrl;
 
-    public UrlShortenerController(UrlShortenerService urlShortenerService) {
+    @Value("${url-shortener.routing.country-header:CF-IPCountry}")
+    private String countryHeader;
+
+    public UrlShortenerController(UrlShortenerService urlShortenerService, IdempotencyService idempotencyService) {
         this.urlShortenerService = urlShortenerService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/shorten")
-    public ResponseEntity<?> shortenUrl(@Valid @RequestBody ShortenRequest request) {
+    public ResponseEntity<?> shortenUrl(@Valid @RequestBody ShortenRequest request,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return shorten(request);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("Idempotency-Key must be 1 to " + IdempotencyService.MAX_KEY_LENGTH + " characters.");
+        }
+        // Retries of the same request are answered from the stored first response
+        String fingerprint = IdempotencyService.fingerprint(request.getLongUrl(), request.getCustomShortCode(),
+                request.getExpirationMinutes(), request.getReservationToken(), request.getRouting());
+        IdempotencyService.StoredResponse response = idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            ResponseEntity<String> first = shorten(request);
+            return new IdempotencyService.StoredResponse(first.getStatusCode().value(), fingerprint, first.getBody());
+        });
+        return ResponseEntity.status(response.status()).body(response.body());
+    }
+
+    private ResponseEntity<String> shorten(ShortenRequest request) {
         try {
             UrlMapping urlMapping = urlShortenerService.shortenUrl(
                     request.getLongUrl(),
                     request.getCustomShortCode(),
-                    request.getExpirationMinutes()
+                    request.getExpirationMinutes(),
+                    request.getReservationToken(),
+                    request.getRouting()
             );
             String shortUrl = baseUrl + urlMapping.getShortCode();
             return ResponseEntity.status(HttpStatus.CREATED).body(shortUrl);
@@ -46,9 +74,12 @@ public class UrlShortenerController {
     }
 
     @GetMapping("/{shortCode}")
-    public void redirectToLongUrl(@PathVariable String shortCode, HttpServletResponse response) throws IOException {
+    public void redirectToLongUrl(@PathVariable String shortCode, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
         try {
-            String longUrl = urlShortenerService.getLongUrl(shortCode);
+            // Routed links choose a target from these; plain links ignore them
+            String longUrl = urlShortenerService.getLongUrl(shortCode, request.getHeader(HttpHeaders.USER_AGENT),
+                    request.getHeader(HttpHeaders.ACCEPT_LANGUAGE), request.getHeader(countryHeader));
             response.sendRedirect(longUrl);
         } catch (UrlNotFoundException e) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
@@ -0,0 +1,14 @@
+package com.afsar.url.shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AliasAvailabilityResponse {
+    private String alias;
+    private boolean available;
+    private List<String> suggestions; // Empty when the alias is available
+}
@@ -0,0 +1,12 @@
+package com.afsar.url.shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AliasReservationResponse {
+    private String alias;
+    private String reservationToken; // Pass back as ShortenRequest.reservationToken
+    private long expiresInSeconds;
+}
@@ -0,0 +1,13 @@
+package com.afsar.url.shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class HostDisableReport {
+    private String host;
+    private long disabled; // Links disabled by this call; links already disabled are not counted
+    private int batches;
+    private long elapsedMillis;
+}
@@ -0,0 +1,14 @@
+package com.afsar.url.shortener.dto;
+
+import com.afsar.url.shortener.importer.ImportFormat;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ImportRequest {
+    @NotBlank(message = "Import id is required")
+    private String importId; // Reusing the id of an interrupted import resumes it
+    @NotBlank(message = "File is required")
+    private String file; // Relative to url-shortener.import.directory
+    private ImportFormat format; // Inferred from the file extension when absent
+}
@@ -0,0 +1,13 @@
+package com.afsar.url.shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MappingPage {
+    private List<MappingResponse> items;
+    private String nextCursor; // Pass back as cursor for the next page; null on the last page
+}
@@ -0,0 +1,28 @@
+package com.afsar.url.shortener.dto;
+
+import com.afsar.url.shortener.model.UrlMapping;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class MappingResponse {
+    private String shortCode;
+    private String longUrl;
+    private String destinationHost;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private boolean disabled;
+    private boolean routed;
+    private long clicks;
+    private long version; // Also the ETag; send it back in If-Match to make a change conditional
+
+    public static MappingResponse from(UrlMapping urlMapping) {
+        return new MappingResponse(urlMapping.getShortCode(), urlMapping.getLongUrl(),
+                urlMapping.getDestinationHost(), urlMapping.getCreatedAt(),
+                urlMapping.getExpiresAt(), urlMapping.isDisabled(), urlMapping.getRoutingRules() != null,
+                urlMapping.getClicks(), urlMapping.getVersion());
+    }
+}
@@ -1,5 +1,6 @@
 package com.afsar.url.shortener.dto;
 
+import com.afsar.url.shortener.routing.RoutingSpec;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
@@ -9,4 +10,6 @@ public class ShortenRequest {
     private String longUrl;
     private String customShortCode;
     private Integer expirationMinutes;
+    private String reservationToken; // From POST /aliases/{alias}/reservations, when customShortCode was reserved
+    private RoutingSpec routing; // Per-request targets; longUrl remains the fallback
 }
@@ -0,0 +1,13 @@
+package com.afsar.url.shortener.dto;
+
+import lombok.Data;
+
+/**
+ * Partial update for {@code PATCH /mappings/{shortCode}}; absent fields are left unchanged.
+ */
+@Data
+public class UpdateMappingRequest {
+    private String longUrl; // New target; canonicalized like POST /shorten
+    private Integer expirationMinutes; // From now; 0 removes the expiry
+    private Boolean disabled; // Disabled links answer 404 until re-enabled
+}
@@ -0,0 +1,18 @@
+package com.afsar.url.shortener.exception;
+
+/**
+ * A conditional change named a version the link is no longer at.
+ */
+public class VersionMismatchException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public VersionMismatchException(String message, long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
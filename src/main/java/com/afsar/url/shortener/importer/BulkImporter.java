@@ -0,0 +1,182 @@
+package com.afsar.url.shortener.importer;
+
+import com.afsar.url.shortener.repository.UrlImportRepository;
+import com.afsar.url.shortener.service.AliasAvailabilityService;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Loads large CSV or NDJSON exports from {@code url-shortener.import.directory} into {@code url_mappings}
+ * without going through {@link com.afsar.url.shortener.service.UrlShortenerService} row by row.
+ * <p>
+ * One thread reads the file in chunks of whole lines; a worker pool parses, validates and canonicalizes
+ * the chunks in parallel, and their {@code COPY} rows are collected in source order into batches. Each batch
+ * is staged, merged and checkpointed in one transaction ({@link UrlImportRepository#commitBatch}), so starting
+ * an interrupted import again with the same id seeks to the last committed byte offset and carries on.
+ * Existing mappings always win: lines whose short code is taken are recorded as conflicts, not overwritten.
+ */
+@Component
+@ConditionalOnProperty(name = "url-shortener.import.enabled", havingValue = "true")
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+
+    private static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final UrlImportRepository urlImportRepository;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final ObjectMapper objectMapper;
+    private final AliasAvailabilityService aliasAvailabilityService;
+
+    @Value("${url-shortener.import.directory}")
+    private Path directory;
+
+    @Value("${url-shortener.import.workers:0}")
+    private int workers;
+
+    @Value("${url-shortener.import.chunk-lines:5000}")
+    private int chunkLines;
+
+    @Value("${url-shortener.import.batch-lines:100000}")
+    private int batchLines;
+
+    @Value("${url-shortener.import.stale-after:PT5M}")
+    private Duration staleAfter;
+
+    public BulkImporter(UrlImportRepository urlImportRepository, UrlCanonicalizer urlCanonicalizer,
+                        ObjectMapper objectMapper, AliasAvailabilityService aliasAvailabilityService) {
+        this.urlImportRepository = urlImportRepository;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.objectMapper = objectMapper;
+        this.aliasAvailabilityService = aliasAvailabilityService;
+    }
+
+    /**
+     * Starts or resumes an import in the background and returns its status at the point it starts from.
+     *
+     * @param fileName path relative to the import directory
+     * @param format   line format, or {@code null} to infer it from the file extension
+     * @throws IllegalArgumentException if the id, file or format is unusable
+     * @throws IllegalStateException    if the import is complete or running elsewhere
+     */
+    public ImportStatus start(String importId, String fileName, ImportFormat format) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new IllegalArgumentException("Import id must be 1 to 64 letters, digits, '.', '_' or '-'.");
+        }
+        Path root = directory.toAbsolutePath().normalize();
+        Path source = root.resolve(fileName).normalize();
+        if (!source.startsWith(root) || !Files.isRegularFile(source)) {
+            throw new IllegalArgumentException("No such file in the import directory: " + fileName);
+        }
+        ImportFormat resolvedFormat = format != null ? format : ImportFormat.fromFileName(fileName);
+
+        String runToken = UUID.randomUUID().toString();
+        ImportStatus status = urlImportRepository.claim(importId, root.relativize(source).toString(), resolvedFormat,
+                runToken, staleAfter);
+        Thread.ofPlatform().name("bulk-import-" + importId).start(() -> run(status, source, runToken));
+        return status;
+    }
+
+    public ImportStatus getStatus(String importId) {
+        return urlImportRepository.findStatus(importId).orElse(null);
+    }
+
+    public List<ImportIssue> getIssues(String importId, long afterLine, int limit) {
+        return urlImportRepository.findIssues(importId, afterLine, limit);
+    }
+
+    private void run(ImportStatus status, Path source, String runToken) {
+        String importId = status.importId();
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ImportChunkProcessor processor = new ImportChunkProcessor(status.format(), urlCanonicalizer, objectMapper);
+        long started = System.nanoTime();
+        log.info("Import {} starting from {} at line {} (byte {}) with {} workers", importId, source,
+                status.linesCommitted() + 1, status.bytesCommitted(), workerCount);
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(channel.position(status.bytesCommitted()));
+             ExecutorService pool = Executors.newFixedThreadPool(workerCount)) {
+            ImportChunkReader reader = new ImportChunkReader(in, status.bytesCommitted(), status.linesCommitted() + 1,
+                    chunkLines);
+            // Bounded so a slow merge pushes back on reading instead of buffering the whole file
+            ArrayDeque<Future<ImportChunkProcessor.ProcessedChunk>> inFlight = new ArrayDeque<>();
+            Batch batch = new Batch();
+            ImportChunkReader.Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                ImportChunkReader.Chunk next = chunk;
+                inFlight.add(pool.submit(() -> processor.process(next)));
+                if (inFlight.size() >= workerCount * 2) {
+                    batch.add(inFlight.poll().get());
+                    if (batch.lines >= batchLines) {
+                        commit(importId, runToken, batch, status.linesCommitted(), started);
+                        batch = new Batch();
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                batch.add(inFlight.poll().get());
+            }
+            if (batch.lines > 0) {
+                commit(importId, runToken, batch, status.linesCommitted(), started);
+            }
+            urlImportRepository.finish(importId, runToken, ImportStatus.COMPLETED, null);
+            log.info("Import {} completed in {} s: {}", importId, (System.nanoTime() - started) / 1_000_000_000,
+                    urlImportRepository.findStatus(importId).orElse(null));
+            aliasAvailabilityService.rebuild(); // Imported codes bypassed markTaken
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Import {} failed; start it again with the same id to resume", importId, cause);
+            urlImportRepository.finish(importId, runToken, ImportStatus.FAILED, String.valueOf(cause));
+        }
+    }
+
+    private void commit(String importId, String runToken, Batch batch, long startLine, long started) {
+        UrlImportRepository.MergeResult result = urlImportRepository.commitBatch(importId, runToken,
+                batch.copyData.toByteArray(), batch.rows, batch.issues, batch.endOffset, batch.endLine);
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+        log.info("Import {} committed through line {}: {} imported, {} conflicts, {} invalid ({} lines/s)", importId,
+                batch.endLine, result.imported(), result.conflicts(), batch.issues.size(), (long) ((batch.endLine - startLine) / seconds));
+    }
+
+    // Consecutive processed chunks merged and checkpointed together
+    private static final class Batch {
+        private final ByteArrayOutputStream copyData = new ByteArrayOutputStream();
+        private final List<ImportIssue> issues = new ArrayList<>();
+        private long rows;
+        private long lines;
+        private long endOffset;
+        private long endLine;
+
+        private void add(ImportChunkProcessor.ProcessedChunk chunk) {
+            copyData.writeBytes(chunk.copyData());
+            issues.addAll(chunk.issues());
+            rows += chunk.rows();
+            lines += chunk.lineCount();
+            endOffset = chunk.endOffset();
+            endLine = chunk.endLine();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.afsar.url.shortener.importer;
+
+import com.afsar.url.shortener.service.AliasAvailabilityService;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses, validates and canonicalizes one chunk of source lines into PostgreSQL {@code COPY} text rows
+ * ({@code line_no, short_code, long_url, created_at, expires_at}) plus the lines it rejected. Stateless, so any
+ * number of worker threads can share one instance.
+ */
+public class ImportChunkProcessor {
+
+    /**
+     * The outcome of one chunk.
+     *
+     * @param endOffset source byte offset just past the chunk
+     * @param endLine   line number of the chunk's last line
+     * @param lineCount source lines in the chunk
+     * @param rows      number of rows in {@code copyData}
+     * @param copyData  {@code COPY ... FROM STDIN} text-format rows
+     * @param issues    rejected lines
+     */
+    public record ProcessedChunk(long endOffset, long endLine, int lineCount, int rows, byte[] copyData,
+                                 List<ImportIssue> issues) {
+    }
+
+    private final ImportFormat format;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final ObjectMapper objectMapper;
+
+    public ImportChunkProcessor(ImportFormat format, UrlCanonicalizer urlCanonicalizer, ObjectMapper objectMapper) {
+        this.format = format;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProcessedChunk process(ImportChunkReader.Chunk chunk) {
+        String text = new String(chunk.data(), StandardCharsets.UTF_8);
+        StringBuilder copy = new StringBuilder(text.length() + chunk.lineCount() * 48);
+        List<ImportIssue> issues = new ArrayList<>();
+        LocalDateTime importedAt = LocalDateTime.now();
+        int rows = 0;
+
+        long lineNo = chunk.firstLine();
+        int start = 0;
+        while (start < text.length()) {
+            int newline = text.indexOf('\n', start);
+            int end = newline < 0 ? text.length() : newline;
+            String line = text.substring(start, end > start && text.charAt(end - 1) == '\r' ? end - 1 : end);
+            start = end + 1;
+
+            if (!line.isBlank() && !(lineNo == 1 && isCsvHeader(line))) {
+                String[] fields = null;
+                try {
+                    fields = parse(line);
+                    String shortCode = validateShortCode(fields[0]);
+                    String longUrl = urlCanonicalizer.canonicalize(fields[1]);
+                    LocalDateTime createdAt = parseTime(fields[2], "created_at");
+                    LocalDateTime expiresAt = parseTime(fields[3], "expires_at");
+                    copy.append(lineNo).append('\t').append(shortCode).append('\t');
+                    appendEscaped(copy, longUrl);
+                    copy.append('\t').append(createdAt != null ? createdAt : importedAt)
+                            .append('\t').append(expiresAt != null ? expiresAt.toString() : "\\N").append('\n');
+                    rows++;
+                } catch (IllegalArgumentException e) {
+                    issues.add(ImportIssue.invalid(lineNo, fields != null ? fields[0] : null,
+                            fields != null ? fields[1] : line, e.getMessage()));
+                }
+            }
+            lineNo++;
+        }
+        return new ProcessedChunk(chunk.endOffset(), chunk.firstLine() + chunk.lineCount() - 1, chunk.lineCount(), rows,
+                copy.toString().getBytes(StandardCharsets.UTF_8), issues);
+    }
+
+    // Returns short_code, long_url, created_at, expires_at; absent fields are null
+    private String[] parse(String line) {
+        if (format == ImportFormat.CSV) {
+            List<String> values = parseCsv(line);
+            if (values.size() < 2 || values.size() > 4) {
+                throw new IllegalArgumentException("Expected 2 to 4 CSV fields, found " + values.size());
+            }
+            String[] fields = new String[4];
+            for (int i = 0; i < values.size(); i++) {
+                fields[i] = values.get(i).isEmpty() ? null : values.get(i);
+            }
+            return fields;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return new String[]{text(node, "short_code"), text(node, "long_url"), text(node, "created_at"),
+                    text(node, "expires_at")};
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return format == ImportFormat.CSV && line.regionMatches(true, line.startsWith("\"") ? 1 : 0, "short_code", 0, 10);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    static List<String> parseCsv(String line) {
+        List<String> values = new ArrayList<>(4);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    value.append('"'); // Escaped quote
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String validateShortCode(String shortCode) {
+        if (shortCode == null || shortCode.isEmpty()) {
+            throw new IllegalArgumentException("Missing short_code");
+        }
+        if (shortCode.length() > AliasAvailabilityService.MAX_SHORT_CODE_LENGTH) {
+            throw new IllegalArgumentException("short_code is longer than " + AliasAvailabilityService.MAX_SHORT_CODE_LENGTH + " characters");
+        }
+        for (int i = 0; i < shortCode.length(); i++) {
+            char c = shortCode.charAt(i);
+            boolean allowed = (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '-' || c == '_';
+            if (!allowed) {
+                throw new IllegalArgumentException("short_code may only contain letters, digits, '-' and '_'");
+            }
+        }
+        return shortCode;
+    }
+
+    // ISO-8601 with an offset, local date-time in the JVM zone (like expires_at itself), or epoch seconds
+    static LocalDateTime parseTime(String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(value)), ZoneId.systemDefault());
+            }
+            if (value.endsWith("Z") || value.lastIndexOf('+') > 0 || value.lastIndexOf('-') > 9) {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("Unparseable " + field + ": " + value);
+        }
+    }
+
+    // COPY text format escapes; canonical URLs never contain these, but the stream must stay well-formed
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.afsar.url.shortener.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a line-oriented source into chunks of whole lines without decoding them, so the reading thread only
+ * scans for newlines and the parsing happens on worker threads. Every chunk records the byte offset just past
+ * its last line, which is what an import checkpoints and seeks back to on resume.
+ */
+public final class ImportChunkReader {
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Consecutive whole lines of the source.
+     *
+     * @param firstLine 1-based line number of the first line in {@code data}
+     * @param lineCount number of lines in {@code data}; the last one may lack a trailing newline at end of input
+     * @param endOffset source byte offset just past the last line
+     * @param data      the raw bytes of the lines, newlines included
+     */
+    public record Chunk(long firstLine, int lineCount, long endOffset, byte[] data) {
+    }
+
+    private final InputStream in;
+    private final int maxLines;
+    private final byte[] buffer = new byte[READ_BUFFER_BYTES];
+    private int position;
+    private int limit;
+    private long offset;
+    private long nextLine;
+
+    /**
+     * @param in        the source, already positioned at {@code startOffset}
+     * @param startOffset byte offset of the first line to read
+     * @param startLine 1-based line number of the line at {@code startOffset}
+     * @param maxLines  lines per chunk
+     */
+    public ImportChunkReader(InputStream in, long startOffset, long startLine, int maxLines) {
+        this.in = in;
+        this.offset = startOffset;
+        this.nextLine = startLine;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Returns the next chunk, or {@code null} at end of input.
+     */
+    public Chunk next() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(maxLines * 128);
+        int lines = 0;
+        boolean partialLine = false;
+        while (lines < maxLines) {
+            if (position == limit) {
+                limit = Math.max(in.read(buffer), 0);
+                position = 0;
+                if (limit == 0) {
+                    break;
+                }
+            }
+            int newline = indexOfNewline(position, limit);
+            int end = newline < 0 ? limit : newline + 1;
+            out.write(buffer, position, end - position);
+            offset += end - position;
+            position = end;
+            if (newline >= 0) {
+                lines++;
+                partialLine = false;
+            } else {
+                partialLine = true;
+            }
+        }
+        if (partialLine) {
+            lines++; // Last line of the input without a trailing newline
+        }
+        if (lines == 0) {
+            return null;
+        }
+        Chunk chunk = new Chunk(nextLine, lines, offset, out.toByteArray());
+        nextLine += lines;
+        return chunk;
+    }
+
+    private int indexOfNewline(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
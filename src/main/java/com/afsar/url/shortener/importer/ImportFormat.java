@@ -0,0 +1,33 @@
+package com.afsar.url.shortener.importer;
+
+import java.util.Locale;
+
+/**
+ * Line formats accepted by the bulk importer. Both carry {@code short_code}, {@code long_url} and optional
+ * {@code created_at} / {@code expires_at}, one mapping per line.
+ * <ul>
+ *     <li>{@link #CSV}: {@code short_code,long_url[,created_at[,expires_at]]}, RFC 4180 quoting, optional header line.
+ *     Quoted fields may not span lines.</li>
+ *     <li>{@link #NDJSON}: one JSON object per line with those keys.</li>
+ * </ul>
+ */
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    /**
+     * Picks the format from the file extension: {@code .csv}, or {@code .ndjson} / {@code .jsonl}.
+     *
+     * @throws IllegalArgumentException for any other extension
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot infer import format from file name: " + fileName);
+    }
+}
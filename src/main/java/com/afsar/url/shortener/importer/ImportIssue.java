@@ -0,0 +1,27 @@
+package com.afsar.url.shortener.importer;
+
+/**
+ * A source line that was not imported.
+ *
+ * @param lineNo          1-based line number in the source
+ * @param reason          {@link #INVALID}, {@link #CODE_TAKEN} or {@link #DUPLICATE_IN_FILE}
+ * @param shortCode       the short code from the line, if it could be read
+ * @param longUrl         the long URL from the line, if it could be read
+ * @param existingLongUrl what the short code already points to, for conflicts
+ * @param detail          why an invalid line was rejected
+ */
+public record ImportIssue(long lineNo, String reason, String shortCode, String longUrl, String existingLongUrl,
+                          String detail) {
+
+    public static final String INVALID = "INVALID";
+    public static final String CODE_TAKEN = "CODE_TAKEN"; // Already mapped to a different URL, or archived
+    public static final String DUPLICATE_IN_FILE = "DUPLICATE_IN_FILE"; // An earlier line claimed it for another URL
+
+    public static ImportIssue invalid(long lineNo, String shortCode, String longUrl, String detail) {
+        return new ImportIssue(lineNo, INVALID, clip(shortCode, 64), clip(longUrl, 4096), null, clip(detail, 512));
+    }
+
+    private static String clip(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
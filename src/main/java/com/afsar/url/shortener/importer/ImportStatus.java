@@ -0,0 +1,27 @@
+package com.afsar.url.shortener.importer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk import as last checkpointed.
+ *
+ * @param importId       caller-chosen id; starting an import with the same id again resumes it
+ * @param source         the file being imported
+ * @param format         its line format
+ * @param status         {@link #RUNNING}, {@link #FAILED} or {@link #COMPLETED}
+ * @param bytesCommitted source bytes whose lines are merged; a resumed import seeks here
+ * @param linesCommitted source lines merged
+ * @param imported       rows added to {@code url_mappings}
+ * @param unchanged      rows already present with the same long URL, and repeated identical lines
+ * @param conflicts      lines whose short code was taken (see the import's issues)
+ * @param invalid        lines rejected by validation (see the import's issues)
+ * @param error          why the last run stopped, if it failed
+ */
+public record ImportStatus(String importId, String source, ImportFormat format, String status, long bytesCommitted,
+                           long linesCommitted, long imported, long unchanged, long conflicts, long invalid,
+                           String error, LocalDateTime startedAt, LocalDateTime updatedAt, LocalDateTime completedAt) {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String FAILED = "FAILED";
+    public static final String COMPLETED = "COMPLETED";
+}
@@ -0,0 +1,27 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One scheduled write-back of the codes redirected from the cache since the previous flush.
+ */
+@Name("urlshortener.AccessFlush")
+@Label("Access Flush")
+@Category({"URL Shortener", "Background"})
+@Description("Batched last_accessed_at update for codes served from the cache")
+@StackTrace(false)
+public class AccessFlushEvent extends jdk.jfr.Event {
+
+    @Label("Codes")
+    public int codes;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Failed")
+    public boolean failed;
+}
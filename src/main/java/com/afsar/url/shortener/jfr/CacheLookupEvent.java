@@ -0,0 +1,24 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One redirect-cache GET; the duration is the Redis round trip.
+ */
+@Name("urlshortener.CacheLookup")
+@Label("Cache Lookup")
+@Category({"URL Shortener", "Redirect"})
+@Description("Redis lookup of a short code on the redirect path")
+@StackTrace(false)
+public class CacheLookupEvent extends jdk.jfr.Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Hit")
+    public boolean hit;
+}
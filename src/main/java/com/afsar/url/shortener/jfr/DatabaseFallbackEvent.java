@@ -0,0 +1,27 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A redirect that missed the cache and went to Postgres, including promotion from the archive.
+ */
+@Name("urlshortener.DatabaseFallback")
+@Label("Database Fallback")
+@Category({"URL Shortener", "Redirect"})
+@Description("Postgres lookup after a cache miss, including archive promotion")
+@StackTrace(false)
+public class DatabaseFallbackEvent extends jdk.jfr.Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Promoted From Archive")
+    public boolean promotedFromArchive;
+}
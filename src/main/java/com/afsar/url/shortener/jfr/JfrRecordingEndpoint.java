@@ -0,0 +1,178 @@
+package com.afsar.url.shortener.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/jfr}: on-demand Flight Recorder profiling of this instance. A POST starts a time-boxed
+ * recording with the JDK default settings overlaid by {@code jfr/url-shortener.jfc}; it stops by itself when the
+ * duration elapses, or early on DELETE, and is then downloadable from {@code /actuator/jfr/<file>}. Only the
+ * latest recording is kept on disk.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    static final String SETTINGS_RESOURCE = "jfr/url-shortener.jfc";
+
+    private static final int STATUS_CONFLICT = 409;
+
+    @Value("${url-shortener.jfr.directory:${java.io.tmpdir}/url-shortener-jfr}")
+    private Path directory;
+
+    @Value("${url-shortener.jfr.default-duration:PT1M}")
+    private Duration defaultDuration;
+
+    @Value("${url-shortener.jfr.max-duration:PT10M}")
+    private Duration maxDuration;
+
+    private Recording recording;
+    private Path file;
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState());
+        status.put("startTime", recording.getStartTime());
+        status.put("duration", recording.getDuration());
+        status.put("file", file.getFileName().toString());
+        if (isFinished() && Files.exists(file)) {
+            status.put("sizeBytes", size(file));
+            status.put("download", "/actuator/jfr/" + file.getFileName());
+        }
+        return status;
+    }
+
+    /**
+     * Starts a recording for {@code duration} (e.g. {@code 90s}, {@code PT2M}), capped at the configured maximum.
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@OptionalParameter String duration) {
+        if (recording != null && !isFinished()) {
+            return new WebEndpointResponse<>(status(), STATUS_CONFLICT);
+        }
+        Duration requested;
+        try {
+            requested = duration == null || duration.isBlank() ? defaultDuration : DurationStyle.detectAndParse(duration);
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(Map.of("error", "Unparseable duration: " + duration),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (requested.isNegative() || requested.isZero()) {
+            return new WebEndpointResponse<>(Map.of("error", "Duration must be positive"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            discardPrevious();
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(serviceSettings().getSettings());
+            Recording started = new Recording(settings);
+            started.setName("url-shortener");
+            started.setToDisk(true);
+            started.setDuration(requested.compareTo(maxDuration) > 0 ? maxDuration : requested);
+            Path destination = directory.resolve("url-shortener-" + Instant.now().getEpochSecond() + ".jfr");
+            started.setDestination(destination); // Written when the recording stops
+            started.start();
+            recording = started;
+            file = destination;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid " + SETTINGS_RESOURCE, e);
+        }
+        return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+    }
+
+    /**
+     * Stops the running recording early; it becomes downloadable once written.
+     */
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> stop() {
+        if (recording == null || isFinished()) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.stop();
+        return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector String fileName) {
+        // Only the current recording's file is served, never an arbitrary path
+        if (file == null || !file.getFileName().toString().equals(fileName) || !Files.exists(file)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (!isFinished()) {
+            return new WebEndpointResponse<>(STATUS_CONFLICT);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file), WebEndpointResponse.STATUS_OK);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    static Configuration serviceSettings() throws IOException, ParseException {
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS_RESOURCE).getInputStream(),
+                StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    private boolean isFinished() {
+        RecordingState state = recording.getState();
+        return state == RecordingState.STOPPED || state == RecordingState.CLOSED;
+    }
+
+    private void discardPrevious() throws IOException {
+        if (recording != null) {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Generating a short code took more than one attempt because candidates were already taken.
+ */
+@Name("urlshortener.ShortCodeCollision")
+@Label("Short Code Collision")
+@Category({"URL Shortener", "Shorten"})
+@Description("Short code generation that had to retry after collisions")
+@StackTrace(false)
+public class ShortCodeCollisionEvent extends jdk.jfr.Event {
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Random Fallback")
+    @Description("Sequential candidates were exhausted and random codes were tried")
+    public boolean randomFallback;
+
+    @Label("Short Code")
+    public String shortCode;
+}
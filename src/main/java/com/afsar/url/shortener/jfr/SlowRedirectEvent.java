@@ -0,0 +1,31 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A whole short-code resolution that took longer than the event threshold, with the tier that answered it.
+ * The threshold is set in the recording settings; the default here applies when none is given.
+ */
+@Name("urlshortener.SlowRedirect")
+@Label("Slow Redirect")
+@Category({"URL Shortener", "Redirect"})
+@Description("Short code resolution slower than the threshold")
+@Threshold("50 ms")
+public class SlowRedirectEvent extends jdk.jfr.Event {
+
+    public static final String CACHE = "CACHE";
+    public static final String WRITE_BEHIND = "WRITE_BEHIND";
+    public static final String DATABASE = "DATABASE";
+    public static final String ARCHIVE = "ARCHIVE";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Served From")
+    public String servedFrom = NOT_FOUND;
+}
@@ -0,0 +1,31 @@
+package com.afsar.url.shortener.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Deflate-compressed block of cold mappings moved out of {@code url_mappings} by the tiering job.
+ * Mapped for schema management only; reads and writes go through {@code UrlArchiveRepository}.
+ */
+@Entity
+@Table(name = "url_mapping_archive_blocks")
+@Data
+@NoArgsConstructor
+public class ArchiveBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "record_count", nullable = false)
+    private int recordCount;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+}
@@ -0,0 +1,28 @@
+package com.afsar.url.shortener.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Points an archived short code at the {@link ArchiveBlock} holding its mapping.
+ */
+@Entity
+@Table(name = "url_mapping_archive_index", indexes = {
+        @Index(name = "idx_url_mapping_archive_index_block_id", columnList = "block_id"), // Empty-block cleanup
+        @Index(name = "idx_url_mapping_archive_index_host", columnList = "destination_host, short_code") // Host disable
+})
+@Data
+@NoArgsConstructor
+public class ArchivedShortCode {
+
+    @Id
+    @Column(name = "short_code", length = 10, nullable = false)
+    private String shortCode;
+
+    @Column(name = "block_id", nullable = false)
+    private long blockId;
+
+    @Column(name = "destination_host") // As on the archived row; null until backfilled on older index rows
+    private String destinationHost;
+}
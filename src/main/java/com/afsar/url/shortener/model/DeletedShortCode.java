@@ -0,0 +1,30 @@
+package com.afsar.url.shortener.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records a deleted mapping so snapshot deltas can tell edge nodes to drop it. The row outlives the mapping;
+ * a code re-created later is recognised by its live row in {@code url_mappings}.
+ */
+@Entity
+@Table(name = "url_mapping_tombstones", indexes = {
+        @Index(name = "idx_url_mapping_tombstones_version", columnList = "version") // Keyset paging for deltas
+})
+@Data
+@NoArgsConstructor
+public class DeletedShortCode {
+
+    @Id
+    @Column(name = "short_code", length = 10, nullable = false)
+    private String shortCode;
+
+    @Column(name = "version", nullable = false) // From url_mapping_version_seq at deletion
+    private long version;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,43 @@
+package com.afsar.url.shortener.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A source line a bulk import did not load: invalid input, or a short code that was already taken.
+ * Mapped for schema management only; reads and writes go through {@code UrlImportRepository}.
+ */
+@Entity
+@Table(name = "url_import_issues", indexes = {
+        @Index(name = "idx_url_import_issues_import_line", columnList = "import_id, line_no") // Keyset paging per import
+})
+@Data
+@NoArgsConstructor
+public class UrlImportIssue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "import_id", nullable = false, length = 64)
+    private String importId;
+
+    @Column(name = "line_no", nullable = false)
+    private long lineNo;
+
+    @Column(name = "reason", nullable = false, length = 32)
+    private String reason;
+
+    @Column(name = "short_code", length = 64)
+    private String shortCode;
+
+    @Column(name = "long_url", length = 4096)
+    private String longUrl;
+
+    @Column(name = "existing_long_url", length = 2048)
+    private String existingLongUrl;
+
+    @Column(name = "detail", length = 512)
+    private String detail;
+}
@@ -0,0 +1,64 @@
+package com.afsar.url.shortener.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk import: which source it reads, how far it has committed, and its running totals.
+ * Mapped for schema management only; reads and writes go through {@code UrlImportRepository}.
+ */
+@Entity
+@Table(name = "url_import_jobs")
+@Data
+@NoArgsConstructor
+public class UrlImportJob {
+
+    @Id
+    @Column(name = "import_id", length = 64)
+    private String importId;
+
+    @Column(name = "source", nullable = false, length = 1024)
+    private String source;
+
+    @Column(name = "format", nullable = false, length = 16)
+    private String format;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "run_token", length = 36) // Identifies the runner allowed to advance the checkpoint
+    private String runToken;
+
+    @Column(name = "bytes_committed", nullable = false)
+    private long bytesCommitted;
+
+    @Column(name = "lines_committed", nullable = false)
+    private long linesCommitted;
+
+    @Column(name = "imported", nullable = false)
+    private long imported;
+
+    @Column(name = "unchanged", nullable = false)
+    private long unchanged;
+
+    @Column(name = "conflicts", nullable = false)
+    private long conflicts;
+
+    @Column(name = "invalid", nullable = false)
+    private long invalid;
+
+    @Column(name = "error", length = 2048)
+    private String error;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
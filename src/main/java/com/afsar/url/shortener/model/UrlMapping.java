@@ -7,7 +7,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "url_mappings")
+@Table(name = "url_mappings", indexes = {
+        @Index(name = "idx_url_mappings_created_at", columnList = "created_at"), // Admin queries by creation time
+        @Index(name = "idx_url_mappings_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_url_mappings_version", columnList = "version"), // Keyset paging for snapshot deltas
+        // Admin queries by destination host, paged in (created_at, short_code) order
+        @Index(name = "idx_url_mappings_host_created", columnList = "destination_host, created_at, short_code")
+})
 @Data
 @NoArgsConstructor
 public class UrlMapping {
@@ -29,6 +35,26 @@ public class UrlMapping {
     @Column(name = "clicks", nullable = false)
     private long clicks;
 
+    @Column(name = "last_accessed_at") // Maintained for tiering; null means never accessed since created_at
+    private LocalDateTime lastAccessedAt;
+
+    @Column(name = "destination_host") // UrlCanonicalizer.hostOf(longUrl); null until backfilled on older rows
+    private String destinationHost;
+
+    @Column(name = "routing_rules", columnDefinition = "text") // Normalized RoutingSpec JSON; null for plain links
+    private String routingRules;
+
+    // Drawn from url_mapping_version_seq on insert and on every PATCH, so it also orders a deleted link
+    // before any later link that reuses its code
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default nextval('url_mapping_version_seq')")
+    private long version;
+
+    @Column(name = "disabled", nullable = false, columnDefinition = "boolean default false")
+    private boolean disabled;
+
+    @Column(name = "updated_at") // Last PATCH; null if never modified
+    private LocalDateTime updatedAt;
+
     // Optional: user_id if you have user management
     // @Column(name = "user_id")
     // private Long userId;
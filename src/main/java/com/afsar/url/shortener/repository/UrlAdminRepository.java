@@ -0,0 +1,165 @@
+package com.afsar.url.shortener.repository;
+
+import com.afsar.url.shortener.model.UrlMapping;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operator queries over {@code url_mappings} by destination host and creation time. Results are ordered by
+ * {@code (created_at, short_code)} and paged by keyset, never by OFFSET, so the cost of a page does not grow
+ * with its position; {@link #forEach} streams a whole result through a server-side cursor instead.
+ */
+@Repository
+public class UrlAdminRepository {
+
+    // SQL twin of UrlCanonicalizer.hostOf, for rows written without destination_host: the authority after the
+    // scheme, minus userinfo and port, lowercased; NULL when there is none
+    static final String HOST_OF_LONG_URL =
+            "NULLIF(lower(substring(long_url from '^[A-Za-z][A-Za-z0-9+.-]*://(?:[^/?#]*@)?(\\[[^]/?#]*\\]|[^:/?#]*)')), '')";
+
+    private static final String COLUMNS =
+            "SELECT short_code, long_url, created_at, expires_at, clicks, routing_rules, version, disabled, updated_at, "
+                    + "destination_host FROM url_mappings";
+    private static final String ORDER = " ORDER BY created_at, short_code";
+    private static final String BACKFILL_HOSTS =
+            "WITH batch AS (SELECT short_code FROM url_mappings "
+                    + "  WHERE short_code > ? AND destination_host IS NULL ORDER BY short_code LIMIT ?), "
+                    + "filled AS (UPDATE url_mappings m SET destination_host = " + HOST_OF_LONG_URL + " "
+                    + "  FROM batch WHERE m.short_code = batch.short_code AND m.destination_host IS NULL "
+                    + "  AND " + HOST_OF_LONG_URL + " IS NOT NULL " // Host-less rows stay NULL and are passed over
+                    + "  RETURNING m.short_code) "
+                    + "SELECT (SELECT max(short_code) FROM batch), (SELECT count(*) FROM filled)";
+    private static final String DISABLE_HOST_BATCH =
+            "WITH batch AS (SELECT short_code FROM url_mappings "
+                    + "  WHERE destination_host = ? AND created_at >= ? AND NOT disabled "
+                    + "  ORDER BY created_at LIMIT ? FOR UPDATE) "
+                    + "UPDATE url_mappings m SET disabled = true, version = nextval('url_mapping_version_seq'), updated_at = ? "
+                    + "FROM batch WHERE m.short_code = batch.short_code "
+                    + "RETURNING m.short_code, m.long_url, m.created_at, m.expires_at, m.clicks, m.routing_rules, "
+                    + "m.version, m.disabled, m.updated_at, m.destination_host";
+
+    private static final RowMapper<UrlMapping> URL_MAPPING_MAPPER = (rs, rowNum) -> {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(rs.getString(1));
+        urlMapping.setLongUrl(rs.getString(2));
+        urlMapping.setCreatedAt(rs.getObject(3, LocalDateTime.class));
+        urlMapping.setExpiresAt(rs.getObject(4, LocalDateTime.class));
+        urlMapping.setClicks(rs.getLong(5));
+        urlMapping.setRoutingRules(rs.getString(6));
+        urlMapping.setVersion(rs.getLong(7));
+        urlMapping.setDisabled(rs.getBoolean(8));
+        urlMapping.setUpdatedAt(rs.getObject(9, LocalDateTime.class));
+        urlMapping.setDestinationHost(rs.getString(10));
+        return urlMapping;
+    };
+
+    /**
+     * Which mappings an admin query selects; {@code null} fields do not filter.
+     *
+     * @param host        exact destination host, as returned by {@code UrlCanonicalizer.normalizeHost}
+     * @param createdFrom inclusive lower bound on {@code created_at}
+     * @param createdTo   exclusive upper bound on {@code created_at}
+     */
+    public record MappingFilter(String host, LocalDateTime createdFrom, LocalDateTime createdTo) {
+    }
+
+    /**
+     * Progress of one backfill batch.
+     *
+     * @param lastShortCode highest short code examined, to resume after; {@code null} once past the last row
+     * @param filled        rows whose {@code destination_host} was set
+     */
+    public record BackfillBatch(String lastShortCode, long filled) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlAdminRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} mappings matching {@code filter} that sort after {@code (afterCreatedAt, afterShortCode)},
+     * or from the start when those are {@code null}.
+     */
+    public List<UrlMapping> findPage(MappingFilter filter, LocalDateTime afterCreatedAt, String afterShortCode, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(COLUMNS).append(where(filter, args));
+        if (afterCreatedAt != null) {
+            // Row comparison, so the host index serves the seek as well as the filter
+            sql.append(args.isEmpty() ? " WHERE " : " AND ").append("(created_at, short_code) > (?, ?)");
+            args.add(Timestamp.valueOf(afterCreatedAt));
+            args.add(afterShortCode);
+        }
+        sql.append(ORDER).append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), URL_MAPPING_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams every mapping matching {@code filter} in page order. Rows arrive through a server-side cursor, so
+     * memory stays flat however many match.
+     */
+    @Transactional(readOnly = true) // PostgreSQL only honours the fetch size inside a transaction
+    public void forEach(MappingFilter filter, Consumer<UrlMapping> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = COLUMNS + where(filter, args) + ORDER;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(1_000);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rs -> {
+            consumer.accept(URL_MAPPING_MAPPER.mapRow(rs, 0));
+        });
+    }
+
+    /**
+     * Fills {@code destination_host} on up to {@code limit} rows after {@code afterShortCode} (or from the first
+     * row when {@code null}) that do not have one yet.
+     */
+    public BackfillBatch backfillHosts(String afterShortCode, int limit) {
+        return jdbcTemplate.queryForObject(BACKFILL_HOSTS, (rs, rowNum) -> new BackfillBatch(rs.getString(1), rs.getLong(2)),
+                afterShortCode == null ? "" : afterShortCode, limit);
+    }
+
+    /**
+     * Disables up to {@code limit} enabled mappings pointing at {@code host} created at or after
+     * {@code createdFrom}, oldest first, each at a new version, and returns them as updated. Empty once none are
+     * left. Passing the latest {@code createdAt} of the previous batch keeps each batch a short index range scan
+     * rather than a rescan of the links already disabled.
+     */
+    public List<UrlMapping> disableHostBatch(String host, LocalDateTime createdFrom, int limit) {
+        return jdbcTemplate.query(DISABLE_HOST_BATCH, URL_MAPPING_MAPPER,
+                host, Timestamp.valueOf(createdFrom), limit, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Only the predicates that apply, so each filter combination gets a plan that can use its index
+    private static String where(MappingFilter filter, List<Object> args) {
+        List<String> predicates = new ArrayList<>();
+        if (filter.host() != null) {
+            predicates.add("destination_host = ?");
+            args.add(filter.host());
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add("created_at >= ?");
+            args.add(Timestamp.valueOf(filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            predicates.add("created_at < ?");
+            args.add(Timestamp.valueOf(filter.createdTo()));
+        }
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+}
@@ -0,0 +1,258 @@
+package com.afsar.url.shortener.repository;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.tiering.ArchiveBlockCodec;
+import com.afsar.url.shortener.tiering.ArchivedMapping;
+import com.afsar.url.shortener.tiering.TableStats;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold tier for mappings. The tiering job moves rows that have not been accessed recently out of
+ * {@code url_mappings} into compressed blocks ({@code url_mapping_archive_blocks}) plus a narrow code-to-block
+ * index, and a redirect for an archived code promotes it back into the hot table.
+ */
+@Repository
+public class UrlArchiveRepository {
+
+    private static final String SELECT_COLD =
+            "SELECT short_code, long_url, created_at, expires_at, clicks, "
+                    + "COALESCE(destination_host, " + UrlAdminRepository.HOST_OF_LONG_URL + ") FROM url_mappings "
+                    + "WHERE COALESCE(last_accessed_at, created_at) < ? AND routing_rules IS NULL AND NOT disabled " // Blocks hold plain, live links only
+                    + "ORDER BY short_code LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String INSERT_BLOCK =
+            "INSERT INTO url_mapping_archive_blocks (archived_at, record_count, payload) VALUES (?, ?, ?) RETURNING id";
+    private static final String INSERT_INDEX =
+            "INSERT INTO url_mapping_archive_index (short_code, block_id, destination_host) VALUES (?, ?, ?)";
+    private static final String DELETE_HOT =
+            "DELETE FROM url_mappings WHERE short_code = ANY(?)";
+    private static final String FIND_ARCHIVED =
+            "SELECT b.payload FROM url_mapping_archive_index i JOIN url_mapping_archive_blocks b ON b.id = i.block_id "
+                    + "WHERE i.short_code = ? FOR UPDATE OF i";
+    private static final String RESTORE =
+            "INSERT INTO url_mappings (short_code, long_url, created_at, expires_at, clicks, last_accessed_at, destination_host, "
+                    + "disabled, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (short_code) DO NOTHING RETURNING version";
+    private static final String FIND_HOT =
+            "SELECT long_url, expires_at, version, disabled FROM url_mappings WHERE short_code = ?";
+    private static final String IS_ARCHIVED =
+            "SELECT EXISTS (SELECT 1 FROM url_mapping_archive_index WHERE short_code = ?)";
+    private static final String DELETE_INDEX =
+            "DELETE FROM url_mapping_archive_index WHERE short_code = ?";
+    private static final String FIND_CODES_FOR_HOST =
+            "SELECT short_code FROM url_mapping_archive_index WHERE destination_host = ? AND short_code > ? "
+                    + "ORDER BY short_code LIMIT ?";
+    private static final String BLOCKS_WITHOUT_HOSTS =
+            "SELECT DISTINCT block_id FROM url_mapping_archive_index WHERE block_id > ? AND destination_host IS NULL "
+                    + "ORDER BY block_id LIMIT ?";
+    private static final String FIND_BLOCK =
+            "SELECT payload FROM url_mapping_archive_blocks WHERE id = ?";
+    private static final String FILL_HOST =
+            "UPDATE url_mapping_archive_index SET destination_host = ? "
+                    + "WHERE short_code = ? AND block_id = ? AND destination_host IS NULL";
+    private static final String DELETE_EMPTY_BLOCKS =
+            "DELETE FROM url_mapping_archive_blocks b "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM url_mapping_archive_index i WHERE i.block_id = b.id)";
+    private static final String TOUCH =
+            "UPDATE url_mappings SET last_accessed_at = ? WHERE short_code = ANY(?)";
+    private static final String TABLE_SIZE =
+            "SELECT c.reltuples::bigint, pg_total_relation_size(c.oid) FROM pg_class c WHERE c.oid = 'url_mappings'::regclass";
+    private static final String TABLE_IO =
+            "SELECT COALESCE(heap_blks_hit, 0) + COALESCE(idx_blks_hit, 0), "
+                    + "COALESCE(heap_blks_read, 0) + COALESCE(idx_blks_read, 0) "
+                    + "FROM pg_statio_user_tables WHERE relid = 'url_mappings'::regclass";
+
+    private static final Logger log = LoggerFactory.getLogger(UrlArchiveRepository.class);
+
+    /**
+     * Progress of one archive index backfill batch.
+     *
+     * @param lastBlockId highest block examined, to resume after; {@code null} once past the last block
+     * @param filled      index rows whose {@code destination_host} was set
+     */
+    public record BackfillBatch(Long lastBlockId, long filled) {
+    }
+
+    private record ColdRow(ArchivedMapping mapping, String destinationHost) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Moves up to {@code limit} mappings last accessed before {@code cutoff} into one archive block.
+     * Rows locked by concurrent redirects or promotions are skipped. Returns the number of rows moved.
+     */
+    @Transactional
+    public int archiveColdBlock(LocalDateTime cutoff, int limit) {
+        List<ColdRow> rows = jdbcTemplate.query(SELECT_COLD, (rs, rowNum) -> new ColdRow(new ArchivedMapping(
+                rs.getString(1),
+                rs.getString(2),
+                CachedUrl.toEpochSecond(rs.getObject(3, LocalDateTime.class)),
+                CachedUrl.toEpochSecond(rs.getObject(4, LocalDateTime.class)),
+                rs.getLong(5)), rs.getString(6)), Timestamp.valueOf(cutoff), limit);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<ArchivedMapping> cold = rows.stream().map(ColdRow::mapping).toList();
+
+        Long blockId = jdbcTemplate.queryForObject(INSERT_BLOCK, Long.class,
+                Timestamp.valueOf(LocalDateTime.now()), cold.size(), ArchiveBlockCodec.encode(cold));
+        // The host stays queryable while archived, so disabling a host reaches these links too
+        jdbcTemplate.batchUpdate(INSERT_INDEX, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.mapping().shortCode());
+            ps.setLong(2, blockId);
+            ps.setString(3, row.destinationHost());
+        });
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_HOT);
+            statement.setArray(1, connection.createArrayOf("varchar",
+                    cold.stream().map(ArchivedMapping::shortCode).toArray()));
+            return statement;
+        });
+        return cold.size();
+    }
+
+    /**
+     * True if {@code shortCode} is held by an archived mapping, and so is not free for a new link.
+     */
+    public boolean isArchived(String shortCode) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_ARCHIVED, Boolean.class, shortCode));
+    }
+
+    /**
+     * Moves an archived mapping back into {@code url_mappings}, marking it accessed now. If a different live row
+     * already holds the code, the archived mapping is left in place for an operator and the live row wins.
+     */
+    @Transactional
+    public Optional<CachedUrl> promote(String shortCode) {
+        return promote(shortCode, false);
+    }
+
+    /**
+     * {@link #promote(String)}, restoring the link disabled when {@code disabled} is set.
+     */
+    @Transactional
+    public Optional<CachedUrl> promote(String shortCode, boolean disabled) {
+        List<byte[]> blocks = jdbcTemplate.query(FIND_ARCHIVED, (rs, rowNum) -> rs.getBytes(1), shortCode);
+        if (blocks.isEmpty()) {
+            // A concurrent redirect may have promoted it while we waited on the row lock
+            return findHot(shortCode);
+        }
+        ArchivedMapping mapping = ArchiveBlockCodec.find(blocks.get(0), shortCode);
+        if (mapping == null) {
+            return Optional.empty();
+        }
+        // Restored rows draw a new version, ordering them after any cache entry from before archiving
+        List<Long> versions = jdbcTemplate.query(RESTORE, (rs, rowNum) -> rs.getLong(1),
+                mapping.shortCode(), mapping.longUrl(), toTimestamp(mapping.createdAtEpochSecond()),
+                mapping.expiresAtEpochSecond() == CachedUrl.NO_EXPIRY ? null : toTimestamp(mapping.expiresAtEpochSecond()),
+                mapping.clicks(), Timestamp.valueOf(LocalDateTime.now()), UrlCanonicalizer.hostOf(mapping.longUrl()),
+                disabled, disabled ? Timestamp.valueOf(LocalDateTime.now()) : null);
+        if (versions.isEmpty()) {
+            Optional<CachedUrl> hot = findHot(shortCode);
+            if (hot.isPresent() && !hot.get().longUrl().equals(mapping.longUrl())) {
+                // The code was reused while archived; dropping the index row would lose this mapping for good
+                log.error("Cannot promote archived mapping '{}' -> {}: the code now belongs to {}; "
+                        + "keeping it in url_mapping_archive_index", shortCode, mapping.longUrl(), hot.get().longUrl());
+                return hot;
+            }
+            jdbcTemplate.update(DELETE_INDEX, shortCode);
+            return hot;
+        }
+        jdbcTemplate.update(DELETE_INDEX, shortCode);
+        return Optional.of(mapping.toCachedUrl(versions.get(0), disabled ? CachedUrl.FLAG_DISABLED : 0));
+    }
+
+    /**
+     * Up to {@code limit} archived codes whose link points at {@code host}, in code order after
+     * {@code afterShortCode} ({@code ""} for the first page).
+     */
+    public List<String> findCodesForHost(String host, String afterShortCode, int limit) {
+        return jdbcTemplate.queryForList(FIND_CODES_FOR_HOST, String.class, host, afterShortCode, limit);
+    }
+
+    /**
+     * Fills {@code destination_host} on index rows archived before the column existed, reading the hosts from up
+     * to {@code limit} blocks after {@code afterBlockId} (or from the first block when {@code null}).
+     */
+    @Transactional
+    public BackfillBatch backfillHosts(Long afterBlockId, int limit) {
+        List<Long> blockIds = jdbcTemplate.queryForList(BLOCKS_WITHOUT_HOSTS, Long.class,
+                afterBlockId == null ? 0 : afterBlockId, limit);
+        long filled = 0;
+        for (long blockId : blockIds) {
+            // Host-less links stay NULL; the block keyset moves past them
+            List<ArchivedMapping> mappings = ArchiveBlockCodec.decode(
+                    jdbcTemplate.queryForObject(FIND_BLOCK, byte[].class, blockId)).stream()
+                    .filter(mapping -> UrlCanonicalizer.hostOf(mapping.longUrl()) != null)
+                    .toList();
+            if (mappings.isEmpty()) {
+                continue;
+            }
+            int[][] results = jdbcTemplate.batchUpdate(FILL_HOST, mappings, mappings.size(), (ps, mapping) -> {
+                ps.setString(1, UrlCanonicalizer.hostOf(mapping.longUrl()));
+                ps.setString(2, mapping.shortCode());
+                ps.setLong(3, blockId);
+            });
+            for (int[] chunk : results) {
+                for (int updated : chunk) {
+                    filled += Math.max(updated, 0);
+                }
+            }
+        }
+        return new BackfillBatch(blockIds.isEmpty() ? null : blockIds.get(blockIds.size() - 1), filled);
+    }
+
+    /**
+     * Deletes blocks whose every mapping has been promoted. Returns the number of blocks removed.
+     */
+    public int deleteEmptyBlocks() {
+        return jdbcTemplate.update(DELETE_EMPTY_BLOCKS);
+    }
+
+    public void touch(Collection<String> shortCodes, LocalDateTime accessedAt) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TOUCH);
+            statement.setTimestamp(1, Timestamp.valueOf(accessedAt));
+            Array codes = connection.createArrayOf("varchar", shortCodes.toArray());
+            statement.setArray(2, codes);
+            return statement;
+        });
+    }
+
+    public TableStats hotTableStats() {
+        long[] size = jdbcTemplate.queryForObject(TABLE_SIZE, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        List<long[]> io = jdbcTemplate.query(TABLE_IO, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long hits = io.isEmpty() ? 0 : io.get(0)[0];
+        long reads = io.isEmpty() ? 0 : io.get(0)[1];
+        return new TableStats(size[0], size[1], hits + reads == 0 ? Double.NaN : (double) hits / (hits + reads));
+    }
+
+    private Optional<CachedUrl> findHot(String shortCode) {
+        return jdbcTemplate.query(FIND_HOT, (rs, rowNum) -> new CachedUrl(rs.getString(1),
+                CachedUrl.toEpochSecond(rs.getObject(2, LocalDateTime.class)),
+                rs.getBoolean(4) ? CachedUrl.FLAG_DISABLED : 0, null, rs.getLong(3)),
+                shortCode).stream().findFirst();
+    }
+
+    private static Timestamp toTimestamp(long epochSecond) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,193 @@
+package com.afsar.url.shortener.repository;
+
+import com.afsar.url.shortener.importer.ImportFormat;
+import com.afsar.url.shortener.importer.ImportIssue;
+import com.afsar.url.shortener.importer.ImportStatus;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage side of the bulk importer. Each batch is loaded with {@code COPY} into a session-local staging
+ * table, merged into {@code url_mappings} with one set-based statement that also records conflicting lines,
+ * and checkpointed, all in a single transaction: a batch is either fully merged and counted or not at all.
+ */
+@Repository
+public class UrlImportRepository {
+
+    // Temporary: no WAL, private to the pooled connection, emptied by every commit
+    private static final String CREATE_STAGING =
+            "CREATE TEMPORARY TABLE IF NOT EXISTS url_import_staging (line_no bigint NOT NULL, "
+                    + "short_code varchar(10) NOT NULL, long_url varchar(2048) NOT NULL, created_at timestamp NOT NULL, "
+                    + "expires_at timestamp) ON COMMIT DELETE ROWS";
+    private static final String COPY_STAGING =
+            "COPY url_import_staging (line_no, short_code, long_url, created_at, expires_at) FROM STDIN";
+    // Sub-statements share one snapshot, so m only sees rows that existed before this batch
+    private static final String MERGE =
+            "WITH candidates AS ("
+                    + "  SELECT DISTINCT ON (short_code) line_no, short_code, long_url, created_at, expires_at "
+                    + "  FROM url_import_staging ORDER BY short_code, line_no), "
+                    + "inserted AS ("
+                    + "  INSERT INTO url_mappings (short_code, long_url, created_at, expires_at, clicks, destination_host) "
+                    + "  SELECT c.short_code, c.long_url, c.created_at, c.expires_at, 0, " + UrlAdminRepository.HOST_OF_LONG_URL
+                    + "  FROM candidates c "
+                    + "  WHERE NOT EXISTS (SELECT 1 FROM url_mapping_archive_index a WHERE a.short_code = c.short_code) "
+                    + "  ON CONFLICT (short_code) DO NOTHING "
+                    + "  RETURNING short_code), "
+                    + "reported AS ("
+                    + "  INSERT INTO url_import_issues (import_id, line_no, reason, short_code, long_url, existing_long_url) "
+                    + "  SELECT ?, s.line_no, "
+                    + "    CASE WHEN m.short_code IS NULL AND s.line_no <> c.line_no THEN 'DUPLICATE_IN_FILE' ELSE 'CODE_TAKEN' END, "
+                    + "    s.short_code, s.long_url, COALESCE(m.long_url, CASE WHEN s.line_no <> c.line_no THEN c.long_url END) "
+                    + "  FROM url_import_staging s "
+                    + "  JOIN candidates c ON c.short_code = s.short_code "
+                    + "  LEFT JOIN url_mappings m ON m.short_code = s.short_code "
+                    + "  WHERE (s.line_no <> c.line_no OR NOT EXISTS (SELECT 1 FROM inserted i WHERE i.short_code = s.short_code)) "
+                    + "    AND s.long_url IS DISTINCT FROM COALESCE(m.long_url, CASE WHEN s.line_no <> c.line_no THEN c.long_url END) "
+                    + "  RETURNING 1) "
+                    + "SELECT (SELECT count(*) FROM inserted), (SELECT count(*) FROM reported)";
+    private static final String INSERT_ISSUE =
+            "INSERT INTO url_import_issues (import_id, line_no, reason, short_code, long_url, existing_long_url, detail) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String CHECKPOINT =
+            "UPDATE url_import_jobs SET bytes_committed = ?, lines_committed = ?, imported = imported + ?, "
+                    + "unchanged = unchanged + ?, conflicts = conflicts + ?, invalid = invalid + ?, updated_at = ? "
+                    + "WHERE import_id = ? AND run_token = ?";
+    private static final String SELECT_JOB =
+            "SELECT import_id, source, format, status, bytes_committed, lines_committed, imported, unchanged, "
+                    + "conflicts, invalid, error, started_at, updated_at, completed_at FROM url_import_jobs WHERE import_id = ?";
+    private static final String INSERT_JOB =
+            "INSERT INTO url_import_jobs (import_id, source, format, status, run_token, bytes_committed, lines_committed, "
+                    + "imported, unchanged, conflicts, invalid, started_at, updated_at) "
+                    + "VALUES (?, ?, ?, 'RUNNING', ?, 0, 0, 0, 0, 0, 0, ?, ?) ON CONFLICT (import_id) DO NOTHING";
+    private static final String RESUME_JOB =
+            "UPDATE url_import_jobs SET status = 'RUNNING', run_token = ?, error = NULL, updated_at = ? WHERE import_id = ?";
+    private static final String FINISH_JOB =
+            "UPDATE url_import_jobs SET status = ?, error = ?, updated_at = ?, completed_at = ? "
+                    + "WHERE import_id = ? AND run_token = ?";
+    private static final String SELECT_ISSUES =
+            "SELECT line_no, reason, short_code, long_url, existing_long_url, detail FROM url_import_issues "
+                    + "WHERE import_id = ? AND line_no > ? ORDER BY line_no LIMIT ?";
+
+    private static final RowMapper<ImportStatus> STATUS_MAPPER = (rs, rowNum) -> new ImportStatus(
+            rs.getString(1), rs.getString(2), ImportFormat.valueOf(rs.getString(3)), rs.getString(4),
+            rs.getLong(5), rs.getLong(6), rs.getLong(7), rs.getLong(8), rs.getLong(9), rs.getLong(10),
+            rs.getString(11), rs.getObject(12, LocalDateTime.class), rs.getObject(13, LocalDateTime.class),
+            rs.getObject(14, LocalDateTime.class));
+
+    /**
+     * Rows a merged batch added, and how many of its lines it reported as conflicts.
+     */
+    public record MergeResult(long imported, long conflicts) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the import, or takes over an existing one that failed or whose runner stopped checkpointing more
+     * than {@code staleAfter} ago. Only the holder of {@code runToken} can advance the checkpoint afterwards.
+     *
+     * @throws IllegalArgumentException if the id is already used for a different source or format
+     * @throws IllegalStateException    if the import is complete or still running
+     */
+    @Transactional
+    public ImportStatus claim(String importId, String source, ImportFormat format, String runToken, Duration staleAfter) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update(INSERT_JOB, importId, source, format.name(), runToken, now, now) == 1) {
+            return jdbcTemplate.queryForObject(SELECT_JOB, STATUS_MAPPER, importId);
+        }
+        ImportStatus existing = jdbcTemplate.queryForObject(SELECT_JOB + " FOR UPDATE", STATUS_MAPPER, importId);
+        if (!existing.source().equals(source) || existing.format() != format) {
+            throw new IllegalArgumentException("Import '" + importId + "' was started from " + existing.source()
+                    + " (" + existing.format() + ").");
+        }
+        if (ImportStatus.COMPLETED.equals(existing.status())) {
+            throw new IllegalStateException("Import '" + importId + "' has already completed.");
+        }
+        if (ImportStatus.RUNNING.equals(existing.status()) && existing.updatedAt().isAfter(LocalDateTime.now().minus(staleAfter))) {
+            throw new IllegalStateException("Import '" + importId + "' is already running.");
+        }
+        jdbcTemplate.update(RESUME_JOB, runToken, now, importId);
+        return jdbcTemplate.queryForObject(SELECT_JOB, STATUS_MAPPER, importId);
+    }
+
+    /**
+     * Stages, merges and checkpoints one batch.
+     *
+     * @param copyData       {@code COPY} text rows from {@code ImportChunkProcessor}
+     * @param rows           number of rows in {@code copyData}
+     * @param invalid        lines rejected before staging
+     * @param bytesCommitted source offset just past the batch
+     * @param linesCommitted last source line in the batch
+     * @throws IllegalStateException if another runner has taken the import over
+     */
+    @Transactional
+    public MergeResult commitBatch(String importId, String runToken, byte[] copyData, long rows,
+                                   List<ImportIssue> invalid, long bytesCommitted, long linesCommitted) {
+        MergeResult result = new MergeResult(0, 0);
+        if (rows > 0) {
+            jdbcTemplate.execute(CREATE_STAGING);
+            jdbcTemplate.execute((ConnectionCallback<Long>) connection -> copyIn(connection.unwrap(PGConnection.class), copyData));
+            result = jdbcTemplate.queryForObject(MERGE,
+                    (rs, rowNum) -> new MergeResult(rs.getLong(1), rs.getLong(2)), importId);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ISSUE, invalid, 1000, (ps, issue) -> {
+            ps.setString(1, importId);
+            ps.setLong(2, issue.lineNo());
+            ps.setString(3, issue.reason());
+            ps.setString(4, issue.shortCode());
+            ps.setString(5, issue.longUrl());
+            ps.setString(6, issue.existingLongUrl());
+            ps.setString(7, issue.detail());
+        });
+        int updated = jdbcTemplate.update(CHECKPOINT, bytesCommitted, linesCommitted, result.imported(),
+                rows - result.imported() - result.conflicts(), result.conflicts(), invalid.size(),
+                Timestamp.valueOf(LocalDateTime.now()), importId, runToken);
+        if (updated == 0) {
+            throw new IllegalStateException("Import '" + importId + "' was taken over by another runner.");
+        }
+        return result;
+    }
+
+    public void finish(String importId, String runToken, String status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FINISH_JOB, status, error, Timestamp.valueOf(now),
+                ImportStatus.COMPLETED.equals(status) ? Timestamp.valueOf(now) : null, importId, runToken);
+    }
+
+    public Optional<ImportStatus> findStatus(String importId) {
+        return jdbcTemplate.query(SELECT_JOB, STATUS_MAPPER, importId).stream().findFirst();
+    }
+
+    /**
+     * Issues of an import in line order, starting after {@code afterLine}.
+     */
+    public List<ImportIssue> findIssues(String importId, long afterLine, int limit) {
+        return jdbcTemplate.query(SELECT_ISSUES, (rs, rowNum) -> new ImportIssue(rs.getLong(1), rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)), importId, afterLine, limit);
+    }
+
+    private static long copyIn(PGConnection connection, byte[] copyData) throws SQLException {
+        try {
+            return connection.getCopyAPI().copyIn(COPY_STAGING, new ByteArrayInputStream(copyData));
+        } catch (IOException e) {
+            throw new SQLException("COPY into staging failed", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.afsar.url.shortener.repository;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.routing.RoutingTable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read path for redirects. Plain prepared statements over the few columns a redirect needs:
+ * no entity hydration, no persistence context and no dirty checking. The PostgreSQL driver
+ * keeps these statements server-side prepared per pooled connection.
+ */
+@Repository
+public class UrlLookupRepository {
+
+    private static final String FIND_BY_SHORT_CODE =
+            "SELECT long_url, expires_at, routing_rules, disabled, version FROM url_mappings WHERE short_code = ?";
+    private static final String INCREMENT_CLICKS =
+            "UPDATE url_mappings SET clicks = clicks + 1, last_accessed_at = now() WHERE short_code = ?";
+    // Archived codes are still taken: a redirect promotes them back into url_mappings
+    private static final String ALL_SHORT_CODES_BYTE_ORDER =
+            "SELECT short_code FROM url_mappings UNION ALL SELECT short_code FROM url_mapping_archive_index "
+                    + "ORDER BY 1 COLLATE \"C\"";
+
+    private static final RowMapper<CachedUrl> CACHED_URL_MAPPER = (rs, rowNum) -> new CachedUrl(
+            rs.getString(1),
+            CachedUrl.toEpochSecond(rs.getObject(2, LocalDateTime.class)),
+            rs.getBoolean(4) ? CachedUrl.FLAG_DISABLED : 0,
+            rs.getString(3) == null ? null : RoutingTable.compiled(rs.getString(3)),
+            rs.getLong(5));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlLookupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<CachedUrl> findByShortCode(String shortCode) {
+        List<CachedUrl> rows = jdbcTemplate.query(FIND_BY_SHORT_CODE, CACHED_URL_MAPPER, shortCode);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    public void incrementClicks(String shortCode) {
+        jdbcTemplate.update(INCREMENT_CLICKS, shortCode);
+    }
+
+    /**
+     * Streams every short code in byte order, hot and archived. A code mid-promotion may appear twice. Rows arrive through a server-side cursor, so memory stays flat
+     * however large the table is.
+     */
+    @Transactional(readOnly = true) // PostgreSQL only honours the fetch size inside a transaction
+    public void forEachShortCodeInByteOrder(Consumer<String> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ALL_SHORT_CODES_BYTE_ORDER);
+            statement.setFetchSize(10_000);
+            return statement;
+        }, rs -> {
+            consumer.accept(rs.getString(1));
+        });
+    }
+}
@@ -1,12 +1,27 @@
 package com.afsar.url.shortener.repository;
 
 import com.afsar.url.shortener.model.UrlMapping;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UrlMappingRepository extends JpaRepository<UrlMapping, String> {
-    Optional<UrlMapping> findByLongUrl(String longUrl);
+    Optional<UrlMapping> findFirstByLongUrl(String longUrl); // Imported legacy links may share a long URL
     boolean existsByShortCode(String shortCode);
+
+    // Dedup targets: plain links that still redirect
+    @Query("SELECT m FROM UrlMapping m WHERE m.longUrl = :longUrl AND m.routingRules IS NULL AND m.disabled = false "
+            + "AND (m.expiresAt IS NULL OR m.expiresAt > :now)")
+    List<UrlMapping> findReusable(@Param("longUrl") String longUrl, @Param("now") LocalDateTime now, Limit limit);
+
+    default Optional<UrlMapping> findReusable(String longUrl) {
+        return findReusable(longUrl, LocalDateTime.now(), Limit.of(1)).stream().findFirst();
+    }
 }
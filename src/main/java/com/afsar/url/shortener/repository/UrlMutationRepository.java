@@ -0,0 +1,96 @@
+package com.afsar.url.shortener.repository;
+
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Write path for PATCH and DELETE. Each mutation is one statement that draws a new version from
+ * {@code url_mapping_version_seq}, so concurrent mutations of a link are totally ordered by version and a
+ * caller's {@code If-Match} version is checked in the same statement that applies the change.
+ */
+@Repository
+public class UrlMutationRepository {
+
+    private static final String NEXT_VERSION = "SELECT nextval('url_mapping_version_seq')";
+    private static final String UPDATE =
+            "UPDATE url_mappings SET long_url = COALESCE(CAST(? AS varchar), long_url), "
+                    + "destination_host = COALESCE(CAST(? AS varchar), destination_host), "
+                    + "expires_at = CASE WHEN ? THEN CAST(? AS timestamp) ELSE expires_at END, "
+                    + "disabled = COALESCE(CAST(? AS boolean), disabled), "
+                    + "version = nextval('url_mapping_version_seq'), updated_at = ? "
+                    + "WHERE short_code = ? AND (CAST(? AS bigint) IS NULL OR version = CAST(? AS bigint)) "
+                    + "RETURNING short_code, long_url, created_at, expires_at, clicks, routing_rules, version, disabled, updated_at";
+    private static final String DELETE =
+            "WITH gone AS (DELETE FROM url_mappings "
+                    + "  WHERE short_code = ? AND (CAST(? AS bigint) IS NULL OR version = CAST(? AS bigint)) "
+                    + "  RETURNING short_code) "
+                    + "INSERT INTO url_mapping_tombstones (short_code, version, deleted_at) "
+                    + "SELECT short_code, nextval('url_mapping_version_seq'), ? FROM gone "
+                    + "ON CONFLICT (short_code) DO UPDATE SET version = EXCLUDED.version, deleted_at = EXCLUDED.deleted_at "
+                    + "RETURNING version";
+    private static final String FIND_VERSION =
+            "SELECT version FROM url_mappings WHERE short_code = ?";
+
+    private static final RowMapper<UrlMapping> URL_MAPPING_MAPPER = (rs, rowNum) -> {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(rs.getString(1));
+        urlMapping.setLongUrl(rs.getString(2));
+        urlMapping.setCreatedAt(rs.getObject(3, LocalDateTime.class));
+        urlMapping.setExpiresAt(rs.getObject(4, LocalDateTime.class));
+        urlMapping.setClicks(rs.getLong(5));
+        urlMapping.setRoutingRules(rs.getString(6));
+        urlMapping.setVersion(rs.getLong(7));
+        urlMapping.setDisabled(rs.getBoolean(8));
+        urlMapping.setUpdatedAt(rs.getObject(9, LocalDateTime.class));
+        return urlMapping;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlMutationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long nextVersion() {
+        Long version = jdbcTemplate.queryForObject(NEXT_VERSION, Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Applies the non-null changes to the hot row and returns it as updated. Empty if there is no hot row or its
+     * version is not {@code expectedVersion} (when given).
+     *
+     * @param changeExpiry whether to set {@code expires_at} to {@code expiresAt}, which may be {@code null}
+     */
+    public Optional<UrlMapping> update(String shortCode, String longUrl, boolean changeExpiry, LocalDateTime expiresAt,
+                                       Boolean disabled, Long expectedVersion) {
+        List<UrlMapping> rows = jdbcTemplate.query(UPDATE, URL_MAPPING_MAPPER,
+                longUrl, UrlCanonicalizer.hostOf(longUrl), changeExpiry, expiresAt == null ? null : Timestamp.valueOf(expiresAt), disabled,
+                Timestamp.valueOf(LocalDateTime.now()), shortCode, expectedVersion, expectedVersion);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Deletes the hot row and records a tombstone. Returns the tombstone's version, or empty if there is no hot
+     * row or its version is not {@code expectedVersion} (when given).
+     */
+    public OptionalLong delete(String shortCode, Long expectedVersion) {
+        List<Long> versions = jdbcTemplate.query(DELETE, (rs, rowNum) -> rs.getLong(1),
+                shortCode, expectedVersion, expectedVersion, Timestamp.valueOf(LocalDateTime.now()));
+        return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+    }
+
+    public OptionalLong findVersion(String shortCode) {
+        List<Long> versions = jdbcTemplate.query(FIND_VERSION, (rs, rowNum) -> rs.getLong(1), shortCode);
+        return versions.isEmpty() ? OptionalLong.empty() : OptionalLong.of(versions.get(0));
+    }
+}
@@ -0,0 +1,43 @@
+package com.afsar.url.shortener.routing;
+
+/**
+ * Coarse device class of a redirect, derived from the {@code User-Agent} header without allocating.
+ */
+public enum DeviceClass {
+    DESKTOP,
+    MOBILE,
+    TABLET,
+    BOT;
+
+    final int bit = 1 << ordinal();
+
+    /**
+     * Classifies a {@code User-Agent}; a missing or unrecognised one counts as {@link #DESKTOP}.
+     */
+    public static DeviceClass of(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return DESKTOP;
+        }
+        if (containsIgnoreCase(userAgent, "bot") || containsIgnoreCase(userAgent, "crawler")
+                || containsIgnoreCase(userAgent, "spider")) {
+            return BOT;
+        }
+        if (userAgent.contains("iPad") || userAgent.contains("Tablet")
+                || (userAgent.contains("Android") && !userAgent.contains("Mobile"))) {
+            return TABLET;
+        }
+        if (userAgent.contains("Mobi") || userAgent.contains("iPhone") || userAgent.contains("Android")) {
+            return MOBILE;
+        }
+        return DESKTOP;
+    }
+
+    private static boolean containsIgnoreCase(String value, String needle) {
+        for (int i = 0, last = value.length() - needle.length(); i <= last; i++) {
+            if (value.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
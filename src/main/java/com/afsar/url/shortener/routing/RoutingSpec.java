@@ -0,0 +1,112 @@
+package com.afsar.url.shortener.routing;
+
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-link routing as submitted and stored: an ordered list of rules, each matching on device class, language
+ * and country and sending matches to one or more weighted targets, plus optional weighted default targets.
+ * The first matching rule wins; with no match the default targets are used, and without those the link's
+ * own long URL. An absent or empty condition matches everything.
+ *
+ * @param rules          evaluated in order
+ * @param defaultTargets weighted split for requests no rule matched; may be empty
+ */
+public record RoutingSpec(List<Rule> rules, List<Target> defaultTargets) {
+
+    public static final int MAX_RULES = 32;
+    public static final int MAX_TARGETS = 16;
+    public static final int MAX_VALUES = 32;
+    public static final int MAX_WEIGHT = 1_000_000;
+
+    /**
+     * @param devices   {@link DeviceClass} names
+     * @param languages primary language subtags ({@code de}) or full tags ({@code pt-BR}), matched against the
+     *                  first range of {@code Accept-Language}
+     * @param countries ISO 3166 alpha-2 codes, matched against the configured country header
+     * @param targets   weighted destinations for matching requests
+     */
+    public record Rule(List<String> devices, List<String> languages, List<String> countries, List<Target> targets) {
+    }
+
+    /**
+     * @param url    destination
+     * @param weight relative share among the targets of the same rule; defaults to 1
+     */
+    public record Target(String url, Integer weight) {
+    }
+
+    /**
+     * Validates the spec and returns it with canonical URLs, upper-case device and country names and
+     * lower-case languages, so equal routings store identically.
+     *
+     * @throws IllegalArgumentException if the spec is malformed or exceeds the limits
+     */
+    public RoutingSpec normalize(UrlCanonicalizer urlCanonicalizer) {
+        List<Rule> ruleList = rules == null ? List.of() : rules;
+        List<Target> defaults = defaultTargets == null ? List.of() : defaultTargets;
+        if (ruleList.isEmpty() && defaults.isEmpty()) {
+            throw new IllegalArgumentException("Routing needs at least one rule or default target.");
+        }
+        if (ruleList.size() > MAX_RULES) {
+            throw new IllegalArgumentException("Routing supports at most " + MAX_RULES + " rules.");
+        }
+        List<Rule> normalizedRules = new ArrayList<>(ruleList.size());
+        for (Rule rule : ruleList) {
+            if (rule == null || rule.targets() == null || rule.targets().isEmpty()) {
+                throw new IllegalArgumentException("Every routing rule needs at least one target.");
+            }
+            List<String> devices = normalizeValues(rule.devices(), "devices");
+            for (String device : devices) {
+                try {
+                    DeviceClass.valueOf(device);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown device class: " + device);
+                }
+            }
+            normalizedRules.add(new Rule(devices,
+                    normalizeValues(rule.languages(), "languages").stream().map(v -> v.toLowerCase(Locale.ROOT)).toList(),
+                    normalizeValues(rule.countries(), "countries"),
+                    normalizeTargets(rule.targets(), urlCanonicalizer)));
+        }
+        return new RoutingSpec(normalizedRules, defaults.isEmpty() ? List.of() : normalizeTargets(defaults, urlCanonicalizer));
+    }
+
+    private static List<String> normalizeValues(List<String> values, String field) {
+        if (values == null) {
+            return List.of();
+        }
+        if (values.size() > MAX_VALUES) {
+            throw new IllegalArgumentException("A routing rule supports at most " + MAX_VALUES + " " + field + ".");
+        }
+        List<String> normalized = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (value == null || value.isBlank() || value.length() > 16) {
+                throw new IllegalArgumentException("Invalid routing " + field + " value: " + value);
+            }
+            normalized.add(value.trim().toUpperCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+
+    private static List<Target> normalizeTargets(List<Target> targets, UrlCanonicalizer urlCanonicalizer) {
+        if (targets.size() > MAX_TARGETS) {
+            throw new IllegalArgumentException("A routing rule supports at most " + MAX_TARGETS + " targets.");
+        }
+        List<Target> normalized = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            if (target == null) {
+                throw new IllegalArgumentException("Routing targets cannot be null.");
+            }
+            int weight = target.weight() == null ? 1 : target.weight();
+            if (weight < 1 || weight > MAX_WEIGHT) {
+                throw new IllegalArgumentException("Routing target weights must be between 1 and " + MAX_WEIGHT + ".");
+            }
+            normalized.add(new Target(urlCanonicalizer.canonicalize(target.url()), weight));
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,190 @@
+package com.afsar.url.shortener.routing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled, immutable form of a {@link RoutingSpec}: rule conditions flattened into parallel arrays that are
+ * scanned in order, with an alias table per rule for weighted targets. {@link #choose} allocates nothing, so it is
+ * safe to run on every redirect.
+ * <p>
+ * Compiled tables are shared by their stored JSON through {@link #compiled(String)}, so a routed link that is
+ * loaded from the cache again and again is parsed and compiled once per process. The most recently used
+ * {@value #MAX_COMPILED} stay compiled.
+ */
+public final class RoutingTable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    static final int MAX_COMPILED = 10_000;
+    // Least recently used first; every access reorders, so reads lock too
+    private static final Map<String, RoutingTable> COMPILED = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RoutingTable> eldest) {
+            return size() > MAX_COMPILED;
+        }
+    };
+
+    private final String json;
+    private final int[] deviceMasks; // 0 = any device
+    private final String[][] languages; // empty = any language
+    private final String[][] countries; // empty = any country
+    private final WeightedTargets[] targets;
+    private final WeightedTargets defaultTargets; // null = the link's long URL
+
+    private RoutingTable(String json, RoutingSpec spec) {
+        this.json = json;
+        List<RoutingSpec.Rule> rules = spec.rules() == null ? List.of() : spec.rules();
+        int n = rules.size();
+        deviceMasks = new int[n];
+        languages = new String[n][];
+        countries = new String[n][];
+        targets = new WeightedTargets[n];
+        for (int i = 0; i < n; i++) {
+            RoutingSpec.Rule rule = rules.get(i);
+            for (String device : orEmpty(rule.devices())) {
+                deviceMasks[i] |= DeviceClass.valueOf(device).bit;
+            }
+            languages[i] = orEmpty(rule.languages()).toArray(String[]::new);
+            countries[i] = orEmpty(rule.countries()).toArray(String[]::new);
+            targets[i] = WeightedTargets.of(rule.targets());
+        }
+        List<RoutingSpec.Target> defaults = spec.defaultTargets();
+        defaultTargets = defaults == null || defaults.isEmpty() ? null : WeightedTargets.of(defaults);
+    }
+
+    /**
+     * Returns the compiled table for stored routing JSON, compiling it on first use.
+     *
+     * @throws IllegalArgumentException if the JSON is not a routing spec
+     */
+    public static RoutingTable compiled(String json) {
+        synchronized (COMPILED) {
+            RoutingTable table = COMPILED.get(json);
+            if (table != null) {
+                return table;
+            }
+        }
+        RoutingTable table = compile(json); // Outside the lock; a racing caller may compile the same JSON too
+        synchronized (COMPILED) {
+            RoutingTable raced = COMPILED.putIfAbsent(json, table);
+            return raced != null ? raced : table;
+        }
+    }
+
+    /**
+     * Serializes an already normalized spec to the JSON stored with the mapping.
+     */
+    public static String toJson(RoutingSpec spec) {
+        try {
+            return JSON.writeValueAsString(spec);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable routing spec", e);
+        }
+    }
+
+    private static RoutingTable compile(String json) {
+        try {
+            return new RoutingTable(json, JSON.readValue(json, RoutingSpec.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed routing spec", e);
+        }
+    }
+
+    /**
+     * Picks the target for a request, or returns {@code null} when no rule matched and there are no default
+     * targets, meaning the link's own long URL.
+     *
+     * @param userAgent      {@code User-Agent} header, may be null
+     * @param acceptLanguage {@code Accept-Language} header, may be null
+     * @param country        ISO 3166 alpha-2 country of the client, may be null
+     */
+    public String choose(String userAgent, String acceptLanguage, String country) {
+        int device = DeviceClass.of(userAgent).bit;
+        for (int i = 0; i < targets.length; i++) {
+            if ((deviceMasks[i] == 0 || (deviceMasks[i] & device) != 0)
+                    && matchesLanguage(languages[i], acceptLanguage)
+                    && matchesCountry(countries[i], country)) {
+                return targets[i].choose();
+            }
+        }
+        return defaultTargets == null ? null : defaultTargets.choose();
+    }
+
+    public String toJson() {
+        return json;
+    }
+
+    // Compares against the first language range, e.g. "pt-BR" in "pt-BR,pt;q=0.9,en;q=0.8"
+    private static boolean matchesLanguage(String[] wanted, String acceptLanguage) {
+        if (wanted.length == 0) {
+            return true;
+        }
+        if (acceptLanguage == null) {
+            return false;
+        }
+        int start = 0;
+        while (start < acceptLanguage.length() && acceptLanguage.charAt(start) == ' ') {
+            start++;
+        }
+        int tagEnd = start;
+        int primaryEnd = -1;
+        while (tagEnd < acceptLanguage.length()) {
+            char c = acceptLanguage.charAt(tagEnd);
+            if (c == ',' || c == ';' || c == ' ') {
+                break;
+            }
+            if (c == '-' && primaryEnd < 0) {
+                primaryEnd = tagEnd;
+            }
+            tagEnd++;
+        }
+        if (primaryEnd < 0) {
+            primaryEnd = tagEnd;
+        }
+        for (String language : wanted) {
+            int end = language.indexOf('-') < 0 ? primaryEnd : tagEnd;
+            if (end - start == language.length() && acceptLanguage.regionMatches(true, start, language, 0, language.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesCountry(String[] wanted, String country) {
+        if (wanted.length == 0) {
+            return true;
+        }
+        if (country == null) {
+            return false;
+        }
+        for (String code : wanted) {
+            if (code.equalsIgnoreCase(country)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> orEmpty(List<String> values) {
+        return values == null ? List.of() : values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RoutingTable other && json.equals(other.json);
+    }
+
+    @Override
+    public int hashCode() {
+        return json.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -0,0 +1,83 @@
+package com.afsar.url.shortener.routing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice among a fixed set of URLs in constant time, using Vose's alias method: column {@code i} is
+ * picked uniformly, then either kept with probability {@code probability[i]} or swapped for {@code alias[i]}.
+ * Immutable once built; {@link #choose()} allocates nothing.
+ */
+final class WeightedTargets {
+
+    private final String[] urls;
+    private final double[] probability;
+    private final int[] alias;
+
+    private WeightedTargets(String[] urls, double[] probability, int[] alias) {
+        this.urls = urls;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    static WeightedTargets of(List<RoutingSpec.Target> targets) {
+        int n = targets.size();
+        String[] urls = new String[n];
+        double[] scaled = new double[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            urls[i] = targets.get(i).url();
+            total += targets.get(i).weight();
+        }
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) targets.get(i).weight() * n / total;
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full up to rounding error
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        return new WeightedTargets(urls, probability, alias);
+    }
+
+    String choose() {
+        if (urls.length == 1) {
+            return urls[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(urls.length);
+        return random.nextDouble() < probability[column] ? urls[column] : urls[alias[column]];
+    }
+}
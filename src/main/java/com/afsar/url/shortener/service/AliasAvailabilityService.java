@@ -0,0 +1,156 @@
+package com.afsar.url.shortener.service;
+
+import com.afsar.url.shortener.repository.UrlLookupRepository;
+import com.afsar.url.shortener.util.FrontCodedStringSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Answers "is this alias free?" and "suggest free aliases near this one" from memory, without a DB round trip
+ * per guess. Taken codes live in a {@link FrontCodedStringSet} rebuilt periodically from the database, plus a
+ * set of codes taken since the last rebuild that every replica learns about over Redis pub/sub.
+ * <p>
+ * The in-memory view can lag by a pub/sub hop, so {@link #reserve} takes a short Redis lease that
+ * {@code POST /shorten} honours, and the insert itself still checks the database.
+ */
+@Service
+public class AliasAvailabilityService implements MessageListener {
+
+    public static final String TAKEN_CODES_CHANNEL = "url-shortener:taken-codes";
+    public static final int MAX_SHORT_CODE_LENGTH = 10; // url_mappings.short_code column length
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private static final String RESERVATION_KEY_PREFIX = "alias:reservation:";
+
+    private static final Logger log = LoggerFactory.getLogger(AliasAvailabilityService.class);
+
+    private final UrlLookupRepository urlLookupRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private volatile FrontCodedStringSet takenCodes = FrontCodedStringSet.builder().build();
+    private final ConcurrentSkipListSet<String> recentlyTaken = new ConcurrentSkipListSet<>();
+
+    @Value("${url-shortener.aliases.reservation-ttl:60s}")
+    private Duration reservationTtl;
+
+    public AliasAvailabilityService(UrlLookupRepository urlLookupRepository, RedisTemplate<String, String> redisTemplate) {
+        this.urlLookupRepository = urlLookupRepository;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * True if {@code code} is neither taken nor leased. The in-memory index answers most guesses; only codes it
+     * considers free cost a Redis lookup for a reservation.
+     */
+    public boolean isAvailable(String code) {
+        return !isTakenLocally(code) && !Boolean.TRUE.equals(redisTemplate.hasKey(RESERVATION_KEY_PREFIX + code));
+    }
+
+    private boolean isTakenLocally(String code) {
+        return recentlyTaken.contains(code) || takenCodes.contains(code);
+    }
+
+    /**
+     * Up to {@code count} free codes derived from {@code code}. Candidates come from the in-memory index, and
+     * their reservations are checked in one MGET per batch rather than one Redis lookup per candidate.
+     */
+    public List<String> suggest(String code, int count) {
+        int limit = Math.min(Math.max(count, 1), MAX_SUGGESTIONS);
+        List<String> suggestions = new ArrayList<>(limit);
+        int suffix = 1;
+        while (suggestions.size() < limit && suffix < 1000) {
+            // Numeric suffixes first, trimming the base so every candidate still fits the column
+            List<String> candidates = new ArrayList<>(limit - suggestions.size());
+            for (; suffix < 1000 && candidates.size() < limit - suggestions.size(); suffix++) {
+                String digits = Integer.toString(suffix);
+                String base = code.length() + digits.length() > MAX_SHORT_CODE_LENGTH
+                        ? code.substring(0, MAX_SHORT_CODE_LENGTH - digits.length())
+                        : code;
+                String candidate = base + digits;
+                if (!candidate.equals(code) && !suggestions.contains(candidate) && !candidates.contains(candidate)
+                        && !isTakenLocally(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            // Spring splits a cross-slot MGET by node in cluster mode
+            List<String> holders = redisTemplate.opsForValue().multiGet(
+                    candidates.stream().map(candidate -> RESERVATION_KEY_PREFIX + candidate).toList());
+            for (int i = 0; i < candidates.size(); i++) {
+                if (holders == null || holders.get(i) == null) {
+                    suggestions.add(candidates.get(i));
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Leases {@code code} for the reservation TTL. Returns the token to pass to {@code POST /shorten},
+     * or {@code null} if the code is taken or already leased.
+     */
+    public String reserve(String code) {
+        if (!isAvailable(code)) {
+            return null;
+        }
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(RESERVATION_KEY_PREFIX + code, token, reservationTtl);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    /**
+     * True unless {@code code} is leased to someone holding a different token.
+     */
+    public boolean isReservationHonored(String code, String token) {
+        String holder = redisTemplate.opsForValue().get(RESERVATION_KEY_PREFIX + code);
+        return holder == null || holder.equals(token);
+    }
+
+    public void markTaken(String code) {
+        recentlyTaken.add(code);
+        redisTemplate.convertAndSend(TAKEN_CODES_CHANNEL, code);
+        redisTemplate.delete(RESERVATION_KEY_PREFIX + code);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        recentlyTaken.add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${url-shortener.aliases.rebuild-interval:PT15M}",
+            initialDelayString = "${url-shortener.aliases.rebuild-interval:PT15M}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        FrontCodedStringSet.Builder builder = FrontCodedStringSet.builder();
+        urlLookupRepository.forEachShortCodeInByteOrder(builder::add);
+        FrontCodedStringSet rebuilt = builder.build();
+        takenCodes = rebuilt;
+        recentlyTaken.removeIf(rebuilt::contains); // Keep only codes taken while the rebuild was running
+        log.info("Rebuilt alias index: {} codes in {} bytes ({} ms)", rebuilt.size(), rebuilt.sizeInBytes(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+}
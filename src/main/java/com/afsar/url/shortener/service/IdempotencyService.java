@@ -0,0 +1,217 @@
+package com.afsar.url.shortener.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and replays its response to retries.
+ * <p>
+ * The first caller claims the key in Redis with a short in-flight marker, runs the action and stores the
+ * response for the configured TTL. Duplicates on the same replica wait on the in-flight future; duplicates on
+ * other replicas poll Redis until the response appears. Server errors are not stored, so a retry after a 5xx
+ * runs the action again.
+ * <p>
+ * The in-flight marker expires after {@code in-flight-timeout}, so a crashed owner frees the key quickly, and is
+ * re-extended while the action is still running, so a slow first request is never run a second time.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String PENDING = "P";
+    private static final long MAX_POLL_INTERVAL_MILLIS = 200;
+
+    // Extends the marker only while it is still ours; a stored response must keep its own TTL
+    private static final RedisScript<Long> EXTEND_IF_PENDING = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService markerRefresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("idempotency-marker-refresh").daemon().factory());
+
+    @Value("${url-shortener.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${url-shortener.idempotency.in-flight-timeout:10s}")
+    private Duration inFlightTimeout;
+
+    public IdempotencyService(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * A response as stored under an idempotency key. {@code fingerprint} identifies the request that produced it,
+     * so a key reused for a different request is rejected rather than answered with someone else's result.
+     */
+    public record StoredResponse(int status, String fingerprint, String body) {
+
+        static StoredResponse decode(String value) {
+            String[] parts = value.split("\n", 3);
+            if (parts.length < 2 || PENDING.equals(parts[0])) {
+                return null;
+            }
+            return new StoredResponse(Integer.parseInt(parts[0]), parts[1], parts.length == 3 ? parts[2] : "");
+        }
+
+        String encode() {
+            return status + "\n" + fingerprint + "\n" + body;
+        }
+    }
+
+    /**
+     * SHA-256 over the request fields that must match for a retry to be answered with the stored response. Each
+     * field is length-prefixed, so no two field lists share an encoding; {@code null} differs from {@code "null"}.
+     */
+    public static String fingerprint(Object... fields) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (Object field : fields) {
+            if (field == null) {
+                digest.update((byte) 0);
+                continue;
+            }
+            byte[] bytes = field.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                    (byte) (bytes.length >>> 8), (byte) bytes.length});
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public StoredResponse execute(String key, String fingerprint, Supplier<StoredResponse> action) {
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return checkFingerprint(awaitLocal(running), fingerprint);
+        }
+        try {
+            StoredResponse response = claimOrAwait(KEY_PREFIX + key, fingerprint, action);
+            mine.complete(response);
+            return checkFingerprint(response, fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private StoredResponse claimOrAwait(String redisKey, String fingerprint, Supplier<StoredResponse> action) {
+        long deadline = System.nanoTime() + inFlightTimeout.toNanos();
+        long pollMillis = 10;
+        while (true) {
+            String marker = PENDING + "\n" + fingerprint;
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(redisKey, marker, inFlightTimeout);
+            if (Boolean.TRUE.equals(claimed)) {
+                return runAndStore(redisKey, marker, action);
+            }
+            String value = redisTemplate.opsForValue().get(redisKey);
+            StoredResponse stored = value != null ? StoredResponse.decode(value) : null;
+            if (stored != null) {
+                return stored; // Retry of a completed request: a single Redis read
+            }
+            if (value == null) {
+                continue; // Previous owner gave up or its marker expired; try to claim again
+            }
+            if (System.nanoTime() > deadline) {
+                return inProgress(fingerprint);
+            }
+            sleep(pollMillis);
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private StoredResponse runAndStore(String redisKey, String marker, Supplier<StoredResponse> action) {
+        long refreshMillis = Math.max(inFlightTimeout.toMillis() / 3, 1);
+        String ttlMillis = Long.toString(inFlightTimeout.toMillis());
+        ScheduledFuture<?> refresh = markerRefresher.scheduleAtFixedRate(
+                () -> redisTemplate.execute(EXTEND_IF_PENDING, List.of(redisKey), marker, ttlMillis),
+                refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        StoredResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            redisTemplate.delete(redisKey);
+            throw e;
+        } finally {
+            refresh.cancel(false);
+        }
+        if (response.status() >= 500) {
+            redisTemplate.delete(redisKey); // Let the client's retry do the work again
+        } else {
+            redisTemplate.opsForValue().set(redisKey, response.encode(), ttl);
+        }
+        return response;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        markerRefresher.shutdownNow();
+    }
+
+    private StoredResponse awaitLocal(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return inProgress(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress(null);
+        } catch (ExecutionException e) {
+            // The original attempt failed without storing anything; report it like the original did
+            return new StoredResponse(500, null, "An unexpected error occurred: " + e.getCause().getMessage());
+        }
+    }
+
+    private static StoredResponse checkFingerprint(StoredResponse response, String fingerprint) {
+        if (response.fingerprint() != null && !response.fingerprint().equals(fingerprint)) {
+            return new StoredResponse(422, fingerprint, "Idempotency-Key was already used for a different request.");
+        }
+        return response;
+    }
+
+    private static StoredResponse inProgress(String fingerprint) {
+        return new StoredResponse(409, fingerprint, "A request with this Idempotency-Key is still in progress.");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight request", e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.afsar.url.shortener.service;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
+import com.afsar.url.shortener.dto.HostDisableReport;
+import com.afsar.url.shortener.dto.MappingPage;
+import com.afsar.url.shortener.dto.MappingResponse;
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.repository.UrlAdminRepository;
+import com.afsar.url.shortener.repository.UrlAdminRepository.MappingFilter;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Abuse and operations queries over all links: by destination host and creation time, paged or exported in
+ * full, plus disabling every link to a host.
+ */
+@Service
+public class MappingAdminService {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingAdminService.class);
+
+    private final UrlAdminRepository urlAdminRepository;
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final UrlMappingCache urlMappingCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${url-shortener.admin.disable-batch-size:1000}")
+    private int disableBatchSize;
+
+    public MappingAdminService(UrlAdminRepository urlAdminRepository, UrlArchiveRepository urlArchiveRepository,
+                               UrlMappingCache urlMappingCache, ObjectMapper objectMapper) {
+        this.urlAdminRepository = urlAdminRepository;
+        this.urlArchiveRepository = urlArchiveRepository;
+        this.urlMappingCache = urlMappingCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Builds a filter from request parameters, normalizing the host the way stored hosts are.
+     *
+     * @throws IllegalArgumentException if the host is invalid or the range is empty
+     */
+    public static MappingFilter filter(String host, LocalDateTime createdFrom, LocalDateTime createdTo) {
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new IllegalArgumentException("createdFrom must be before createdTo");
+        }
+        return new MappingFilter(host == null || host.isBlank() ? null : UrlCanonicalizer.normalizeHost(host),
+                createdFrom, createdTo);
+    }
+
+    /**
+     * One page of matching links in {@code (createdAt, shortCode)} order, starting after {@code cursor} (a
+     * {@code nextCursor} from the previous page) or from the beginning when it is {@code null}.
+     */
+    public MappingPage page(MappingFilter filter, String cursor, int limit) {
+        LocalDateTime afterCreatedAt = null;
+        String afterShortCode = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = LocalDateTime.parse(position[0]);
+            afterShortCode = position[1];
+        }
+        List<UrlMapping> mappings = urlAdminRepository.findPage(filter, afterCreatedAt, afterShortCode, limit);
+        String nextCursor = null;
+        if (mappings.size() == limit) {
+            UrlMapping last = mappings.get(mappings.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getShortCode());
+        }
+        return new MappingPage(mappings.stream().map(MappingResponse::from).toList(), nextCursor);
+    }
+
+    /**
+     * Writes every matching link to {@code out} as newline-delimited JSON, in page order.
+     */
+    public void export(MappingFilter filter, OutputStream out) throws IOException {
+        try {
+            urlAdminRepository.forEach(filter, mapping -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(MappingResponse.from(mapping)));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Client went away; abandons the cursor
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Disables every enabled link to {@code host}, {@code url-shortener.admin.disable-batch-size} rows per
+     * transaction. Each batch's cache entries are replaced with disabled ones at the new versions before the next
+     * batch starts, so redirects stop within one batch of the database change and a concurrent reload of an old
+     * row cannot re-enable a link. Archived links to the host are promoted back already disabled, so a later
+     * redirect cannot bring them back enabled. Safe to re-run: links already disabled are skipped.
+     *
+     * @throws IllegalArgumentException if the host is invalid
+     */
+    public HostDisableReport disableHost(String host) {
+        String normalized = UrlCanonicalizer.normalizeHost(host);
+        long started = System.nanoTime();
+        long disabled = 0;
+        int batches = 0;
+        String afterArchived = "";
+        List<String> archived;
+        while (!(archived = urlArchiveRepository.findCodesForHost(normalized, afterArchived, disableBatchSize)).isEmpty()) {
+            Map<String, CachedUrl> entries = new LinkedHashMap<>();
+            for (String shortCode : archived) {
+                urlArchiveRepository.promote(shortCode, true).ifPresent(cached -> entries.put(shortCode, cached));
+            }
+            urlMappingCache.putAll(entries); // Over any entry left from before the link was archived
+            disabled += entries.values().stream().filter(cached -> cached.hasFlag(CachedUrl.FLAG_DISABLED)).count();
+            batches++;
+            afterArchived = archived.get(archived.size() - 1);
+        }
+        LocalDateTime createdFrom = LocalDateTime.of(1970, 1, 1, 0, 0); // Before any created_at
+        List<UrlMapping> batch;
+        while (!(batch = urlAdminRepository.disableHostBatch(normalized, createdFrom, disableBatchSize)).isEmpty()) {
+            Map<String, CachedUrl> entries = new LinkedHashMap<>();
+            for (UrlMapping mapping : batch) {
+                entries.put(mapping.getShortCode(), CachedUrl.from(mapping));
+                if (mapping.getCreatedAt().isAfter(createdFrom)) {
+                    createdFrom = mapping.getCreatedAt();
+                }
+            }
+            urlMappingCache.putAll(entries);
+            disabled += batch.size();
+            batches++;
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Disabled {} links to {} in {} batches ({} ms)", disabled, normalized, batches, elapsedMillis);
+        return new HostDisableReport(normalized, disabled, batches, elapsedMillis);
+    }
+
+    static String encodeCursor(LocalDateTime createdAt, String shortCode) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + shortCode).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length == 2) {
+                LocalDateTime.parse(position[0]);
+                return position;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Fall through
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+}
@@ -1,54 +1,145 @@
 package com.afsar.url.shortener.service;
 
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
+import com.afsar.url.shortener.config.RedisConfig;
 import com.afsar.url.shortener.exception.ShortCodeAlreadyExistsException;
 import com.afsar.url.shortener.exception.UrlNotFoundException;
+import com.afsar.url.shortener.exception.VersionMismatchException;
+import com.afsar.url.shortener.jfr.CacheLookupEvent;
+import com.afsar.url.shortener.jfr.DatabaseFallbackEvent;
+import com.afsar.url.shortener.jfr.ShortCodeCollisionEvent;
+import com.afsar.url.shortener.jfr.SlowRedirectEvent;
 import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import com.afsar.url.shortener.repository.UrlLookupRepository;
 import com.afsar.url.shortener.repository.UrlMappingRepository;
+import com.afsar.url.shortener.repository.UrlMutationRepository;
+import com.afsar.url.shortener.routing.RoutingSpec;
+import com.afsar.url.shortener.routing.RoutingTable;
+import com.afsar.url.shortener.tiering.AccessTracker;
 import com.afsar.url.shortener.util.Base62Encoder;
-import org.apache.commons.validator.routines.UrlValidator;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.afsar.url.shortener.writebehind.WriteBehindShortener;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class UrlShortenerService {
 
+    private static final Logger log = LoggerFactory.getLogger(UrlShortenerService.class);
+
     private final UrlMappingRepository urlMappingRepository;
-    private final RedisTemplate<String, String> redisTemplate;
-    private final UrlValidator urlValidator;
+    private final UrlLookupRepository urlLookupRepository;
+    private final UrlMutationRepository urlMutationRepository;
+    private final UrlMappingCache urlMappingCache;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final AliasAvailabilityService aliasAvailabilityService;
+    private final WriteBehindShortener writeBehindShortener;
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final AccessTracker accessTracker;
 
     @Value("${url-shortener.short-code-length}")
     private int shortCodeLength;
 
-    public UrlShortenerService(UrlMappingRepository urlMappingRepository, RedisTemplate<String, String> redisTemplate) {
+    // Unset (-1) resolves to one acknowledgement when redirect cache reads go to replicas, none otherwise
+    @Value("${url-shortener.cache.replica-acks:-1}")
+    private int configuredReplicaAcks;
+
+    @Value("${url-shortener.redis.cache-read-from:UPSTREAM}")
+    private String cacheReadFrom;
+
+    private int replicaAcks;
+
+    @Value("${url-shortener.cache.replica-ack-timeout:500ms}")
+    private Duration replicaAckTimeout;
+
+    public UrlShortenerService(UrlMappingRepository urlMappingRepository, UrlLookupRepository urlLookupRepository,
+                               UrlMutationRepository urlMutationRepository,
+                               UrlMappingCache urlMappingCache, UrlCanonicalizer urlCanonicalizer,
+                               AliasAvailabilityService aliasAvailabilityService,
+                               WriteBehindShortener writeBehindShortener, UrlArchiveRepository urlArchiveRepository,
+                               AccessTracker accessTracker) {
         this.urlMappingRepository = urlMappingRepository;
-        this.redisTemplate = redisTemplate;
-        this.urlValidator = new UrlValidator(new String[]{"http", "https"}); // Allow http and https schemes
+        this.urlLookupRepository = urlLookupRepository;
+        this.urlMutationRepository = urlMutationRepository;
+        this.urlMappingCache = urlMappingCache;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.aliasAvailabilityService = aliasAvailabilityService;
+        this.writeBehindShortener = writeBehindShortener;
+        this.urlArchiveRepository = urlArchiveRepository;
+        this.accessTracker = accessTracker;
+    }
+
+    /**
+     * Without a WAIT, a PATCH or DELETE reaches replicas whenever replication gets to it, so replica cache reads
+     * could serve the old target for an unbounded time. Refuses that combination instead of running with it.
+     */
+    @PostConstruct
+    void resolveReplicaAcks() {
+        boolean readsReplicas = RedisConfig.readsReplicas(cacheReadFrom);
+        if (configuredReplicaAcks < 0) {
+            replicaAcks = readsReplicas ? 1 : 0;
+            return;
+        }
+        if (readsReplicas && configuredReplicaAcks == 0) {
+            throw new IllegalStateException("url-shortener.cache.replica-acks must be at least 1 when "
+                    + "url-shortener.redis.cache-read-from is " + cacheReadFrom
+                    + ", otherwise replica reads may serve changed and deleted links indefinitely");
+        }
+        replicaAcks = configuredReplicaAcks;
     }
 
     @Transactional
-    @CacheEvict(value = "longUrl", key = "#result.shortCode", condition = "#result != null")
-    public UrlMapping shortenUrl(String longUrl, String customShortCode, Integer expirationMinutes) {
-        if (!urlValidator.isValid(longUrl)) {
-            throw new IllegalArgumentException("Invalid URL format: " + longUrl);
+    public UrlMapping shortenUrl(String rawLongUrl, String customShortCode, Integer expirationMinutes) {
+        return shortenUrl(rawLongUrl, customShortCode, expirationMinutes, null);
+    }
+
+    @Transactional
+    public UrlMapping shortenUrl(String rawLongUrl, String customShortCode, Integer expirationMinutes,
+                                 String reservationToken) {
+        return shortenUrl(rawLongUrl, customShortCode, expirationMinutes, reservationToken, null);
+    }
+
+    @Transactional
+    public UrlMapping shortenUrl(String rawLongUrl, String customShortCode, Integer expirationMinutes,
+                                 String reservationToken, RoutingSpec routing) {
+        // Validates and canonicalizes in one pass, so equivalent spellings dedup to the same mapping
+        String longUrl = urlCanonicalizer.canonicalize(rawLongUrl);
+        // Normalized and compiled up front so a bad spec fails the request, not a later redirect
+        String routingRules = routing == null ? null : RoutingTable.toJson(routing.normalize(urlCanonicalizer));
+        boolean custom = customShortCode != null && !customShortCode.isEmpty();
+        if (custom) {
+            validateCustomShortCode(customShortCode); // Before anything claims it in the cache or the database
         }
 
-        // Check if the long URL already has a short code
-        Optional<UrlMapping> existingMapping = urlMappingRepository.findByLongUrl(longUrl);
+        // Check if the long URL already has a plain short code that still redirects; a routed link is always a
+        // new one, and disabled, expired or routed links are never handed out for a plain shorten
+        Optional<UrlMapping> existingMapping = routingRules != null ? Optional.empty()
+                : writeBehindShortener.findPendingByLongUrl(longUrl)
+                        .or(() -> urlMappingRepository.findReusable(longUrl));
         if (existingMapping.isPresent()) {
             return existingMapping.get();
         }
 
         String shortCode;
-        if (customShortCode != null && !customShortCode.isEmpty()) {
-            if (urlMappingRepository.existsByShortCode(customShortCode)) {
+        if (custom) {
+            // Someone else holding a live reservation wins, even if the row does not exist yet
+            if (!aliasAvailabilityService.isReservationHonored(customShortCode, reservationToken)) {
+                throw new ShortCodeAlreadyExistsException("Custom short code '" + customShortCode + "' is reserved.");
+            }
+            if (isTaken(customShortCode)) {
                 throw new ShortCodeAlreadyExistsException("Custom short code '" + customShortCode + "' already exists.");
             }
             shortCode = customShortCode;
@@ -62,6 +153,8 @@ public class UrlShortenerService {
 
             // Simulate auto-incrementing ID by getting max ID and incrementing
             // In a real distributed system, this needs a robust solution like a distributed sequence or UUIDs.
+            ShortCodeCollisionEvent collisions = new ShortCodeCollisionEvent();
+            collisions.begin();
             long nextId = (urlMappingRepository.count() + 1 + ThreadLocalRandom.current().nextInt(100)); // Add randomness to avoid predictable sequential IDs if exposed
 
             int retryCount = 0;
@@ -71,44 +164,249 @@ public class UrlShortenerService {
                     shortCode = generateRandomShortCode(); // Fallback to random if base62 code gets too long
                 }
                 retryCount++;
-            } while (urlMappingRepository.existsByShortCode(shortCode) && retryCount < 10); // Limit retries
+            } while (isTaken(shortCode) && retryCount < 10); // Limit retries
 
-            if (urlMappingRepository.existsByShortCode(shortCode)) {
+            if (isTaken(shortCode)) {
                 // If after retries, still a collision, generate a purely random one
+                collisions.randomFallback = true;
                 shortCode = generateRandomShortCode();
-                while (urlMappingRepository.existsByShortCode(shortCode)) {
+                retryCount++;
+                while (isTaken(shortCode)) {
                     shortCode = generateRandomShortCode(); // Keep trying
+                    retryCount++;
                 }
             }
+            if (retryCount > 1) {
+                collisions.attempts = retryCount;
+                collisions.shortCode = shortCode;
+                collisions.commit();
+            }
         }
 
         UrlMapping urlMapping = new UrlMapping();
         urlMapping.setShortCode(shortCode);
         urlMapping.setLongUrl(longUrl);
+        urlMapping.setDestinationHost(UrlCanonicalizer.hostOf(longUrl));
+        urlMapping.setRoutingRules(routingRules);
         if (expirationMinutes != null && expirationMinutes > 0) {
             urlMapping.setExpiresAt(LocalDateTime.now().plusMinutes(expirationMinutes));
         }
 
+        if (writeBehindShortener.isEnabled() && routingRules == null) { // The log records plain links only
+            return shortenWriteBehind(urlMapping, custom);
+        }
+
+        urlMapping.setVersion(urlMutationRepository.nextVersion()); // Above any tombstone left by a deleted link with this code
         UrlMapping savedMapping = urlMappingRepository.save(urlMapping);
-        redisTemplate.opsForValue().set(savedMapping.getShortCode(), savedMapping.getLongUrl()); // Cache the mapping
+        urlMappingCache.put(savedMapping.getShortCode(), CachedUrl.from(savedMapping)); // Cache URL and expiry together
+        aliasAvailabilityService.markTaken(savedMapping.getShortCode());
         return savedMapping;
     }
 
-    @Cacheable(value = "longUrl", key = "#shortCode")
-    @Transactional
+    public UrlMapping getMapping(String shortCode) {
+        Optional<UrlMapping> mapping = urlMappingRepository.findById(shortCode);
+        if (mapping.isEmpty() && urlArchiveRepository.promote(shortCode).isPresent()) {
+            mapping = urlMappingRepository.findById(shortCode);
+        }
+        return mapping.orElseThrow(() -> missing(shortCode, null));
+    }
+
+    /**
+     * Applies the non-null changes to a link and caches the result at its new version. With
+     * {@code expectedVersion} the change only applies if the link is still at that version.
+     *
+     * @param expirationMinutes expiry from now; 0 removes it
+     */
+    public UrlMapping updateMapping(String shortCode, String rawLongUrl, Integer expirationMinutes, Boolean disabled,
+                                    Long expectedVersion) {
+        if (rawLongUrl == null && expirationMinutes == null && disabled == null) {
+            throw new IllegalArgumentException("Nothing to update.");
+        }
+        if (expirationMinutes != null && expirationMinutes < 0) {
+            throw new IllegalArgumentException("Expiration minutes must be 0 (no expiry) or positive.");
+        }
+        String longUrl = rawLongUrl == null ? null : urlCanonicalizer.canonicalize(rawLongUrl);
+        LocalDateTime expiresAt = expirationMinutes == null || expirationMinutes == 0 ? null
+                : LocalDateTime.now().plusMinutes(expirationMinutes);
+
+        Optional<UrlMapping> updated = urlMutationRepository.update(shortCode, longUrl, expirationMinutes != null,
+                expiresAt, disabled, expectedVersion);
+        if (updated.isEmpty() && urlArchiveRepository.promote(shortCode).isPresent()) {
+            // Archived links come back to the hot table before they are changed
+            updated = urlMutationRepository.update(shortCode, longUrl, expirationMinutes != null, expiresAt, disabled,
+                    expectedVersion);
+        }
+        UrlMapping mapping = updated.orElseThrow(() -> missing(shortCode, expectedVersion));
+
+        // Rejected only if a concurrent change already cached a higher version
+        CachedUrl cached = CachedUrl.from(mapping);
+        if (replicaAcks > 0) {
+            checkReplicaAcks(shortCode, urlMappingCache.putAndAwait(shortCode, cached, replicaAcks, replicaAckTimeout));
+        } else {
+            urlMappingCache.put(shortCode, cached);
+        }
+        return mapping;
+    }
+
+    /**
+     * Deletes a link and leaves a cache tombstone, so a redirect that loaded the row before the delete cannot
+     * re-cache it. Returns the tombstone's version.
+     */
+    public long deleteMapping(String shortCode, Long expectedVersion) {
+        OptionalLong deleted = urlMutationRepository.delete(shortCode, expectedVersion);
+        if (deleted.isEmpty() && urlArchiveRepository.promote(shortCode).isPresent()) {
+            deleted = urlMutationRepository.delete(shortCode, expectedVersion);
+        }
+        long version = deleted.orElseThrow(() -> missing(shortCode, expectedVersion));
+
+        if (replicaAcks > 0) {
+            checkReplicaAcks(shortCode, urlMappingCache.putTombstoneAndAwait(shortCode, version, replicaAcks, replicaAckTimeout));
+        } else {
+            urlMappingCache.putTombstone(shortCode, version);
+        }
+        return version;
+    }
+
+    private RuntimeException missing(String shortCode, Long expectedVersion) {
+        OptionalLong current = urlMutationRepository.findVersion(shortCode);
+        if (current.isPresent()) {
+            return new VersionMismatchException("Short code '" + shortCode + "' is at version " + current.getAsLong()
+                    + ", not " + expectedVersion + ".", current.getAsLong());
+        }
+        if (writeBehindShortener.isPending(shortCode)) {
+            return new IllegalStateException("Short code '" + shortCode + "' is still being persisted; retry shortly.");
+        }
+        return new UrlNotFoundException("Short URL not found: " + shortCode);
+    }
+
+    // With replica cache reads, a change is only visible everywhere once the replicas have it
+    private void checkReplicaAcks(String shortCode, long acknowledged) {
+        if (acknowledged < replicaAcks) {
+            log.warn("Only {} of {} Redis replicas acknowledged the cache update for {} within {}",
+                    acknowledged, replicaAcks, shortCode, replicaAckTimeout);
+        }
+    }
+
     public String getLongUrl(String shortCode) {
-        UrlMapping urlMapping = urlMappingRepository.findById(shortCode)
-                .orElseThrow(() -> new UrlNotFoundException("Short URL not found: " + shortCode));
+        return getLongUrl(shortCode, null, null, null);
+    }
+
+    /**
+     * Resolves the redirect target for a request. Routed links pick their target from the request attributes;
+     * plain links ignore them. No transaction: each statement auto-commits, and a cache hit never borrows a
+     * connection.
+     */
+    public String getLongUrl(String shortCode, String userAgent, String acceptLanguage, String country) {
+        SlowRedirectEvent redirect = new SlowRedirectEvent();
+        redirect.begin();
+        try {
+            return resolveLongUrl(shortCode, redirect).targetFor(userAgent, acceptLanguage, country);
+        } finally {
+            redirect.shortCode = shortCode;
+            redirect.commit(); // Recorded only above the event threshold
+        }
+    }
+
+    private CachedUrl resolveLongUrl(String shortCode, SlowRedirectEvent redirect) {
+        // Cached entries carry their own expiry, so a hit needs no DB round trip to be validated
+        CacheLookupEvent lookup = new CacheLookupEvent();
+        lookup.begin();
+        CachedUrl cached = urlMappingCache.get(shortCode);
+        lookup.shortCode = shortCode;
+        lookup.hit = cached != null;
+        lookup.commit();
+        if (cached != null) {
+            if (cached.hasFlag(CachedUrl.FLAG_DELETED)) {
+                throw new UrlNotFoundException("Short URL not found: " + shortCode);
+            }
+            if (cached.hasFlag(CachedUrl.FLAG_DISABLED)) {
+                throw new UrlNotFoundException("Short URL is disabled: " + shortCode);
+            }
+            if (cached.isExpired(Instant.now().getEpochSecond())) {
+                throw new UrlNotFoundException("Short URL has expired: " + shortCode);
+            }
+            accessTracker.record(shortCode); // Keeps cache-only hot links out of the archive
+            redirect.servedFrom = SlowRedirectEvent.CACHE;
+            return cached;
+        }
+
+        CachedUrl pending = writeBehindShortener.findPending(shortCode);
+        if (pending != null && !pending.isExpired(Instant.now().getEpochSecond())) {
+            redirect.servedFrom = SlowRedirectEvent.WRITE_BEHIND;
+            return pending; // Accepted in write-behind mode, cache entry lost, row not drained yet
+        }
+
+        DatabaseFallbackEvent fallback = new DatabaseFallbackEvent();
+        fallback.begin();
+        Optional<CachedUrl> row = urlLookupRepository.findByShortCode(shortCode);
+        if (row.isEmpty()) {
+            row = urlArchiveRepository.promote(shortCode); // Cold links move back to the hot table on access
+            fallback.promotedFromArchive = row.isPresent();
+        }
+        fallback.shortCode = shortCode;
+        fallback.found = row.isPresent();
+        fallback.commit();
+        CachedUrl loaded = row.orElseThrow(() -> new UrlNotFoundException("Short URL not found: " + shortCode));
+        redirect.servedFrom = fallback.promotedFromArchive ? SlowRedirectEvent.ARCHIVE : SlowRedirectEvent.DATABASE;
 
-        if (urlMapping.getExpiresAt() != null && urlMapping.getExpiresAt().isBefore(LocalDateTime.now())) {
+        if (loaded.isExpired(Instant.now().getEpochSecond())) {
             // URL has expired, consider deleting it (asynchronously or as part of a cleanup job)
             throw new UrlNotFoundException("Short URL has expired: " + shortCode);
         }
+        if (loaded.hasFlag(CachedUrl.FLAG_DISABLED)) {
+            urlMappingCache.put(shortCode, loaded); // Later hits are refused from the cache
+            throw new UrlNotFoundException("Short URL is disabled: " + shortCode);
+        }
+
+        urlLookupRepository.incrementClicks(shortCode); // Single UPDATE, no entity load
+        // Stamped with the version read, so this loses to a PATCH or DELETE that committed meanwhile
+        urlMappingCache.put(shortCode, loaded);
+
+        return loaded;
+    }
+
+    private UrlMapping shortenWriteBehind(UrlMapping urlMapping, boolean custom) {
+        urlMapping.setCreatedAt(LocalDateTime.now());
+        // Until the row lands in Postgres the cache entry is the cluster-wide claim on the code
+        ShortCodeCollisionEvent collisions = new ShortCodeCollisionEvent();
+        collisions.begin();
+        int attempts = 1;
+        while (!urlMappingCache.putIfAbsent(urlMapping.getShortCode(), CachedUrl.from(urlMapping))) {
+            if (custom) {
+                throw new ShortCodeAlreadyExistsException("Custom short code '" + urlMapping.getShortCode() + "' already exists.");
+            }
+            urlMapping.setShortCode(generateRandomShortCode());
+            attempts++;
+        }
+        if (attempts > 1) {
+            collisions.attempts = attempts;
+            collisions.randomFallback = true;
+            collisions.shortCode = urlMapping.getShortCode();
+            collisions.commit();
+        }
+        try {
+            writeBehindShortener.append(urlMapping); // Returns once fsync'd
+        } catch (RuntimeException e) {
+            urlMappingCache.evict(urlMapping.getShortCode());
+            throw e;
+        }
+        aliasAvailabilityService.markTaken(urlMapping.getShortCode());
+        return urlMapping;
+    }
 
-        urlMapping.setClicks(urlMapping.getClicks() + 1); // Increment click count
-        urlMappingRepository.save(urlMapping); // Save updated clicks
+    private static void validateCustomShortCode(String shortCode) {
+        if (shortCode.length() > AliasAvailabilityService.MAX_SHORT_CODE_LENGTH) {
+            throw new IllegalArgumentException("Custom short code is longer than "
+                    + AliasAvailabilityService.MAX_SHORT_CODE_LENGTH + " characters.");
+        }
+        if (!Base62Encoder.isBase62(shortCode)) {
+            throw new IllegalArgumentException("Custom short code may only contain letters and digits.");
+        }
+    }
 
-        return urlMapping.getLongUrl();
+    private boolean isTaken(String shortCode) {
+        return writeBehindShortener.isPending(shortCode) || urlMappingRepository.existsByShortCode(shortCode)
+                || urlArchiveRepository.isArchived(shortCode); // Promotion would bring the old link back
     }
 
     // Helper for truly random short code generation (fallback)
@@ -0,0 +1,106 @@
+package com.afsar.url.shortener.snapshot;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redirect lookups for edge nodes that never talk to Postgres: a memory-mapped {@link SnapshotReader}
+ * plus a small on-heap overlay of the deltas applied since that snapshot. Deltas must be applied in order;
+ * {@link #replaceSnapshot(Path)} swaps in a newer full snapshot and drops the overlay.
+ */
+public class EdgeSnapshotStore implements Closeable {
+
+    private record State(SnapshotReader snapshot, Map<String, CachedUrl> upserts, Set<String> removed,
+                         long appliedThroughEpochSecond) {
+    }
+
+    private volatile State state;
+
+    private EdgeSnapshotStore(SnapshotReader snapshot) {
+        this.state = emptyOverlay(snapshot);
+    }
+
+    public static EdgeSnapshotStore open(Path snapshotFile) throws IOException {
+        return new EdgeSnapshotStore(SnapshotReader.open(snapshotFile));
+    }
+
+    /**
+     * Returns the live mapping for {@code shortCode}, or {@code null} if it is unknown, removed or expired.
+     */
+    public CachedUrl lookup(String shortCode, long nowEpochSecond) {
+        State current = state;
+        CachedUrl cachedUrl = current.upserts().get(shortCode);
+        if (cachedUrl == null) {
+            if (current.removed().contains(shortCode)) {
+                return null;
+            }
+            cachedUrl = current.snapshot().lookup(shortCode);
+        }
+        return cachedUrl == null || cachedUrl.isExpired(nowEpochSecond) ? null : cachedUrl;
+    }
+
+    public long appliedThroughEpochSecond() {
+        return state.appliedThroughEpochSecond();
+    }
+
+    public synchronized void applyDelta(Path deltaFile) throws IOException {
+        State current = state;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(deltaFile)))) {
+            if (in.readInt() != SnapshotFormat.DELTA_MAGIC || in.readInt() != SnapshotFormat.VERSION) {
+                throw new IOException("Unsupported delta format: " + deltaFile);
+            }
+            long from = in.readLong();
+            long to = in.readLong();
+            if (from > current.appliedThroughEpochSecond()) {
+                throw new IllegalStateException("Delta " + deltaFile + " starts at " + from
+                        + " but the store is only current through " + current.appliedThroughEpochSecond());
+            }
+            if (to <= current.appliedThroughEpochSecond()) {
+                return; // Already covered
+            }
+
+            // Apply to copies so concurrent lookups see either the old or the new overlay, never half of one
+            Map<String, CachedUrl> upserts = new ConcurrentHashMap<>(current.upserts());
+            Set<String> removed = ConcurrentHashMap.newKeySet();
+            removed.addAll(current.removed());
+            for (byte op = in.readByte(); op != 0; op = in.readByte()) {
+                String shortCode = in.readUTF();
+                if (op == SnapshotFormat.DELTA_UPSERT) {
+                    long expiresAt = in.readLong();
+                    upserts.put(shortCode, new CachedUrl(in.readUTF(), expiresAt, 0));
+                    removed.remove(shortCode);
+                } else if (op == SnapshotFormat.DELTA_REMOVE) {
+                    upserts.remove(shortCode);
+                    removed.add(shortCode);
+                } else {
+                    throw new IOException("Corrupt delta entry in " + deltaFile);
+                }
+            }
+            state = new State(current.snapshot(), upserts, removed, to);
+        }
+    }
+
+    public synchronized void replaceSnapshot(Path snapshotFile) throws IOException {
+        SnapshotReader previous = state.snapshot();
+        state = emptyOverlay(SnapshotReader.open(snapshotFile));
+        previous.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        state.snapshot().close();
+    }
+
+    private static State emptyOverlay(SnapshotReader snapshot) {
+        return new State(snapshot, Map.of(), Set.of(), snapshot.asOfEpochSecond());
+    }
+}
@@ -0,0 +1,73 @@
+package com.afsar.url.shortener.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the changes between two points in time as a small sequential file that edges apply on top of
+ * their current snapshot: header (magic, version, from and to epoch seconds), then upsert/remove entries,
+ * then an end marker. Written to a temp file and moved into place atomically.
+ */
+public class SnapshotDeltaWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private int entryCount;
+    private boolean closed;
+
+    public SnapshotDeltaWriter(Path target, long fromEpochSecond, long toEpochSecond) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        out.writeInt(SnapshotFormat.DELTA_MAGIC);
+        out.writeInt(SnapshotFormat.VERSION);
+        out.writeLong(fromEpochSecond);
+        out.writeLong(toEpochSecond);
+    }
+
+    public void upsert(String shortCode, String longUrl, long expiresAtEpochSecond) throws IOException {
+        out.writeByte(SnapshotFormat.DELTA_UPSERT);
+        out.writeUTF(shortCode);
+        out.writeLong(expiresAtEpochSecond);
+        out.writeUTF(longUrl);
+        entryCount++;
+    }
+
+    public void remove(String shortCode) throws IOException {
+        out.writeByte(SnapshotFormat.DELTA_REMOVE);
+        out.writeUTF(shortCode);
+        entryCount++;
+    }
+
+    public int entryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.writeByte(0); // End marker; a file without it is rejected as truncated
+            out.flush();
+            channel.force(true);
+        } finally {
+            out.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
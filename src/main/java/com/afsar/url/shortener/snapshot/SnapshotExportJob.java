@@ -0,0 +1,98 @@
+package com.afsar.url.shortener.snapshot;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Periodically publishes snapshot and delta files for edge nodes into a shared directory. Enable it on a
+ * single instance only. Files are named by their epoch seconds: {@code snapshot-<asOf>.usnp} and
+ * {@code delta-<from>-<to>.usdl}; an edge loads the newest snapshot, then applies later deltas in order.
+ */
+@Component
+@ConditionalOnProperty(name = "url-shortener.snapshot.enabled", havingValue = "true")
+public class SnapshotExportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotExportJob.class);
+
+    // The highest version drawn when an export started
+    private record VersionMark(LocalDateTime at, long version) {
+    }
+
+    private final SnapshotExporter snapshotExporter;
+
+    @Value("${url-shortener.snapshot.directory}")
+    private Path directory;
+
+    @Value("${url-shortener.snapshot.delta-overlap:PT5M}")
+    private Duration deltaOverlap;
+
+    private LocalDateTime exportedThrough;
+    private final Deque<VersionMark> versionMarks = new ArrayDeque<>(); // Oldest first
+
+    public SnapshotExportJob(SnapshotExporter snapshotExporter) {
+        this.snapshotExporter = snapshotExporter;
+    }
+
+    @Scheduled(cron = "${url-shortener.snapshot.full-cron:0 0 3 * * *}")
+    public synchronized void exportSnapshot() throws IOException {
+        Files.createDirectories(directory);
+        LocalDateTime asOf = LocalDateTime.now();
+        VersionMark mark = new VersionMark(asOf, snapshotExporter.currentVersion()); // Before reading any row
+        long started = System.nanoTime();
+        int records = snapshotExporter.exportSnapshot(directory.resolve("snapshot-" + epoch(asOf) + ".usnp"), asOf);
+        exportedThrough = asOf;
+        versionMarks.clear();
+        versionMarks.add(mark);
+        log.info("Exported snapshot of {} mappings in {} ms", records, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.snapshot.delta-interval:PT1M}")
+    public synchronized void exportDelta() throws IOException {
+        if (exportedThrough == null) {
+            exportSnapshot(); // Edges need a base before deltas mean anything
+            return;
+        }
+        LocalDateTime to = LocalDateTime.now();
+        long toVersion = snapshotExporter.currentVersion();
+        long fromVersion = rescanFrom(to);
+        int entries = snapshotExporter.exportDelta(
+                directory.resolve("delta-" + epoch(exportedThrough) + "-" + epoch(to) + ".usdl"), exportedThrough, to,
+                fromVersion, toVersion);
+        exportedThrough = to;
+        versionMarks.addLast(new VersionMark(to, toVersion));
+        log.debug("Exported delta with {} entries for versions ({}, {}]", entries, fromVersion, toVersion);
+    }
+
+    /**
+     * Where the next delta starts: the newest mark at least {@code delta-overlap} old, or the snapshot's own mark.
+     * A version is drawn before its transaction commits, so a delta that starts right after the previous one
+     * would miss rows that committed late. Re-scanning the last {@code delta-overlap} of versions catches every
+     * transaction that commits within that long of its write.
+     */
+    private long rescanFrom(LocalDateTime now) {
+        LocalDateTime horizon = now.minus(deltaOverlap);
+        VersionMark start = versionMarks.pollFirst();
+        while (!versionMarks.isEmpty() && !versionMarks.peekFirst().at().isAfter(horizon)) {
+            start = versionMarks.pollFirst();
+        }
+        versionMarks.addFirst(start);
+        return start.version();
+    }
+
+    private static long epoch(LocalDateTime time) {
+        return CachedUrl.toEpochSecond(time);
+    }
+}
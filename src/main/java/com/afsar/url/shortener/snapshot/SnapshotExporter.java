@@ -0,0 +1,166 @@
+package com.afsar.url.shortener.snapshot;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Exports live mappings for edge redirect nodes. Every query pages with a keyset predicate
+ * ({@code WHERE key > last ORDER BY key LIMIT n}) so each page is an index range scan, however deep the
+ * export gets, and rows stream straight into the file writers.
+ * <p>
+ * Deltas select changed rows by {@code version}, not by {@code created_at}/{@code updated_at}: every insert,
+ * change, restore and delete draws a new version when it is written, whereas the timestamps are application
+ * clock values that drained write-behind rows, imported legacy rows and promoted archive rows carry from the
+ * past. A version is drawn before its transaction commits, so callers re-scan a trailing range of versions
+ * (see {@link SnapshotExportJob}) to pick up transactions that committed after a delta was written.
+ */
+@Service
+public class SnapshotExporter {
+
+    private static final String LIVE_PAGE =
+            "SELECT short_code, long_url, expires_at FROM url_mappings "
+                    + "WHERE short_code > ? AND (expires_at IS NULL OR expires_at > ?) AND NOT disabled "
+                    + "ORDER BY short_code LIMIT ?";
+    private static final String CURRENT_VERSION = "SELECT last_value FROM url_mapping_version_seq";
+    // Versions are unique across url_mappings and tombstones, so these page on the version alone
+    private static final String CHANGED_PAGE =
+            "SELECT short_code, long_url, expires_at, disabled, version FROM url_mappings "
+                    + "WHERE version > ? AND version <= ? ORDER BY version LIMIT ?";
+    private static final String DELETED_PAGE =
+            "SELECT t.short_code, t.version FROM url_mapping_tombstones t "
+                    + "WHERE t.version > ? AND t.version <= ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM url_mappings m WHERE m.short_code = t.short_code) " // Re-created since
+                    + "ORDER BY t.version LIMIT ?";
+    // Expiry is a point in time rather than a write, so it keeps a (expires_at, short_code) window
+    private static final String EXPIRED_PAGE =
+            "SELECT short_code, expires_at FROM url_mappings "
+                    + "WHERE (expires_at, short_code) > (?, ?) AND expires_at <= ? "
+                    + "ORDER BY expires_at, short_code LIMIT ?";
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${url-shortener.snapshot.page-size:5000}")
+    private int pageSize;
+
+    public SnapshotExporter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The latest version drawn so far, committed or not. Take it before an export to bound the next delta.
+     */
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(CURRENT_VERSION, Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Writes every mapping that is live at {@code asOf} to {@code file}. Returns the number of records.
+     */
+    public int exportSnapshot(Path file, LocalDateTime asOf) throws IOException {
+        try (SnapshotWriter writer = new SnapshotWriter(file, CachedUrl.toEpochSecond(asOf))) {
+            String after = "";
+            int fetched;
+            do {
+                String[] last = {after};
+                int[] count = {0};
+                jdbcTemplate.query(LIVE_PAGE, rs -> {
+                    last[0] = rs.getString(1);
+                    count[0]++;
+                    try {
+                        writer.add(last[0], rs.getString(2),
+                                CachedUrl.toEpochSecond(rs.getObject(3, LocalDateTime.class)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, after, asOf, pageSize);
+                after = last[0];
+                fetched = count[0];
+            } while (fetched == pageSize);
+            return writer.recordCount();
+        }
+    }
+
+    /**
+     * Writes the current state of the codes whose version is in {@code (fromVersion, toVersion]}: live ones as
+     * upserts, disabled, expired and deleted ones as removals. Codes that expired in the time window
+     * {@code (from, to]} are removed as well. Returns the number of entries.
+     * <p>
+     * Entries are current rows, not history, so re-exporting a version range in a later delta is harmless.
+     */
+    public int exportDelta(Path file, LocalDateTime from, LocalDateTime to, long fromVersion, long toVersion)
+            throws IOException {
+        try (SnapshotDeltaWriter writer = new SnapshotDeltaWriter(file, CachedUrl.toEpochSecond(from),
+                CachedUrl.toEpochSecond(to))) {
+            forEachVersion(CHANGED_PAGE, fromVersion, toVersion, rs -> {
+                LocalDateTime expiresAt = rs.getObject(3, LocalDateTime.class);
+                if (rs.getBoolean(4) || (expiresAt != null && !expiresAt.isAfter(to))) {
+                    writer.remove(rs.getString(1));
+                } else {
+                    writer.upsert(rs.getString(1), rs.getString(2), CachedUrl.toEpochSecond(expiresAt));
+                }
+            });
+            forEachVersion(DELETED_PAGE, fromVersion, toVersion, rs -> writer.remove(rs.getString(1)));
+            forEachExpired(from, to, rs -> writer.remove(rs.getString(1)));
+            return writer.entryCount();
+        }
+    }
+
+    // Keyset-pages a query over versions (fromVersion, toVersion]; the version is the last column
+    private void forEachVersion(String sql, long fromVersion, long toVersion, RowWriter rowWriter) {
+        long after = fromVersion;
+        int fetched;
+        do {
+            long[] last = {after};
+            int[] count = {0};
+            jdbcTemplate.query(sql, rs -> {
+                last[0] = rs.getLong(rs.getMetaData().getColumnCount());
+                count[0]++;
+                write(rowWriter, rs);
+            }, after, toVersion, pageSize);
+            after = last[0];
+            fetched = count[0];
+        } while (fetched == pageSize);
+    }
+
+    // Keyset-pages EXPIRED_PAGE over (from, to] on (expires_at, short_code)
+    private void forEachExpired(LocalDateTime from, LocalDateTime to, RowWriter rowWriter) {
+        LocalDateTime afterTime = from;
+        String afterCode = "";
+        int fetched;
+        do {
+            Object[] last = {afterTime, afterCode};
+            int[] count = {0};
+            jdbcTemplate.query(EXPIRED_PAGE, rs -> {
+                last[0] = rs.getObject(2, LocalDateTime.class);
+                last[1] = rs.getString(1);
+                count[0]++;
+                write(rowWriter, rs);
+            }, afterTime, afterCode, to, pageSize);
+            afterTime = (LocalDateTime) last[0];
+            afterCode = (String) last[1];
+            fetched = count[0];
+        } while (fetched == pageSize);
+    }
+
+    private static void write(RowWriter rowWriter, ResultSet rs) throws SQLException {
+        try {
+            rowWriter.write(rs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
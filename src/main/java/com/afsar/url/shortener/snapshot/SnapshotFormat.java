@@ -0,0 +1,63 @@
+package com.afsar.url.shortener.snapshot;
+
+/**
+ * On-disk layout shared by {@link SnapshotWriter} and {@link SnapshotReader}.
+ * <pre>
+ *   data blocks     per block: Deflate-compressed records, in export (short code) order
+ *                   record: varint code length, code bytes, varlong expiry, varint URL length, URL bytes
+ *   bucket offsets  int[bucketCount]   minimal perfect hash displacement per bucket
+ *   bucket hashes   byte[bucketCount]  which hash function each bucket uses (padded to 8 bytes)
+ *   slots           int[recordCount]   perfect-hash slot to record ordinal
+ *   block offsets   long[blockCount + 1]
+ *   footer          {@link #FOOTER_LENGTH} bytes, see {@link SnapshotWriter}
+ * </pre>
+ * The perfect hash is hash-and-displace: a key's bucket picks one of several hash functions and an
+ * offset, and its slot is {@code (hash_k(key) + offset) mod recordCount}.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final int DELTA_MAGIC = 0x5553444C; // "USDL"
+    static final int VERSION = 1;
+    static final int FOOTER_LENGTH = 48;
+    static final int KEYS_PER_BUCKET = 4;
+    static final int MAX_HASH_FUNCTIONS = 127;
+
+    static final byte DELTA_UPSERT = 1;
+    static final byte DELTA_REMOVE = 2;
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private SnapshotFormat() {
+    }
+
+    static long hash(CharSequence shortCode) {
+        long h = 0xCBF29CE484222325L; // FNV-1a over chars, finished with a strong mixer
+        for (int i = 0; i < shortCode.length(); i++) {
+            h ^= shortCode.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    static int bucket(long hash, int bucketCount) {
+        return (int) Long.remainderUnsigned(hash, bucketCount);
+    }
+
+    static int baseSlot(long hash, int hashFunction, int slotCount) {
+        return (int) Long.remainderUnsigned(mix(hash + (hashFunction + 1) * GOLDEN), slotCount);
+    }
+
+    static int bucketCount(int recordCount) {
+        return Math.max(1, (recordCount + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET);
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
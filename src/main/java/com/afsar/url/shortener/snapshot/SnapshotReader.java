@@ -0,0 +1,226 @@
+package com.afsar.url.shortener.snapshot;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Memory-maps a snapshot written by {@link SnapshotWriter} and answers lookups in O(1): one perfect-hash
+ * probe, one block inflate and a short scan inside the block. The file stays off-heap; per-thread scratch
+ * buffers are reused, so a lookup only allocates the returned value.
+ */
+public class SnapshotReader implements Closeable {
+
+    private static final long CHUNK_SIZE = 1L << 30; // Data is mapped in 1 GiB windows
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] dataChunks;
+    private final MappedByteBuffer tables;
+    private final int recordCount;
+    private final int blockRecords;
+    private final int bucketCount;
+    private final int blockCount;
+    private final long asOfEpochSecond;
+    private final int functionsOffset;
+    private final int slotsOffset;
+    private final int blockIndexOffset;
+
+    private SnapshotReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < SnapshotFormat.FOOTER_LENGTH) {
+            channel.close();
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        ByteBuffer footer = ByteBuffer.allocate(SnapshotFormat.FOOTER_LENGTH);
+        channel.read(footer, size - SnapshotFormat.FOOTER_LENGTH);
+        footer.flip();
+        if (footer.getInt() != SnapshotFormat.MAGIC || footer.getInt() != SnapshotFormat.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported snapshot format: " + file);
+        }
+        recordCount = footer.getInt();
+        blockRecords = footer.getInt();
+        bucketCount = footer.getInt();
+        blockCount = footer.getInt();
+        asOfEpochSecond = footer.getLong();
+        long tablesOffset = footer.getLong();
+
+        tables = channel.map(FileChannel.MapMode.READ_ONLY, tablesOffset, size - SnapshotFormat.FOOTER_LENGTH - tablesOffset);
+        functionsOffset = bucketCount * 4;
+        slotsOffset = functionsOffset + bucketCount + SnapshotWriter.padding(bucketCount);
+        blockIndexOffset = slotsOffset + recordCount * 4;
+
+        dataChunks = new MappedByteBuffer[(int) ((tablesOffset + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        for (int i = 0; i < dataChunks.length; i++) {
+            long start = i * CHUNK_SIZE;
+            dataChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, tablesOffset - start));
+        }
+    }
+
+    public static SnapshotReader open(Path file) throws IOException {
+        return new SnapshotReader(file);
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public long asOfEpochSecond() {
+        return asOfEpochSecond;
+    }
+
+    /**
+     * Returns the stored mapping for {@code shortCode}, or {@code null} if the snapshot does not contain it.
+     * Expiry is not checked here.
+     */
+    public CachedUrl lookup(String shortCode) {
+        if (recordCount == 0) {
+            return null;
+        }
+        long hash = SnapshotFormat.hash(shortCode);
+        int bucket = SnapshotFormat.bucket(hash, bucketCount);
+        int offset = tables.getInt(bucket * 4);
+        int function = tables.get(functionsOffset + bucket);
+        int slot = (int) (((long) SnapshotFormat.baseSlot(hash, function, recordCount) + offset) % recordCount);
+        int ordinal = tables.getInt(slotsOffset + slot * 4);
+
+        Scratch scratch = SCRATCH.get();
+        byte[] raw = inflateBlock(ordinal / blockRecords, scratch);
+        int pos = 0;
+        for (int skip = ordinal % blockRecords; skip > 0; skip--) {
+            pos = skipRecord(raw, pos);
+        }
+
+        // A perfect hash maps every key somewhere, so confirm the record really is this code
+        long codeLength = readVarLong(raw, pos, scratch);
+        pos = scratch.position;
+        if (!codeMatches(raw, pos, (int) codeLength, shortCode)) {
+            return null;
+        }
+        pos += (int) codeLength;
+        long expiresAt = readVarLong(raw, pos, scratch);
+        pos = scratch.position;
+        int urlLength = (int) readVarLong(raw, pos, scratch);
+        pos = scratch.position;
+        return new CachedUrl(new String(raw, pos, urlLength, StandardCharsets.UTF_8), expiresAt, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close(); // Mappings are released once unreachable
+    }
+
+    private byte[] inflateBlock(int block, Scratch scratch) {
+        long start = tables.getLong(blockIndexOffset + block * 8);
+        int rawLength = readInt(start);
+        int compressedLength = readInt(start + 4);
+        byte[] compressed = scratch.compressed(compressedLength);
+        copy(start + 8, compressed, compressedLength);
+
+        byte[] raw = scratch.raw(rawLength);
+        Inflater inflater = scratch.inflater;
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedLength);
+        try {
+            int total = 0;
+            while (total < rawLength) {
+                int n = inflater.inflate(raw, total, rawLength - total);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated snapshot block " + block);
+                }
+                total += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt snapshot block " + block, e);
+        }
+        return raw;
+    }
+
+    private int readInt(long position) {
+        byte[] four = SCRATCH.get().four;
+        copy(position, four, 4);
+        return ((four[0] & 0xFF) << 24) | ((four[1] & 0xFF) << 16) | ((four[2] & 0xFF) << 8) | (four[3] & 0xFF);
+    }
+
+    private void copy(long position, byte[] target, int length) {
+        int copied = 0;
+        while (copied < length) {
+            long at = position + copied;
+            MappedByteBuffer chunk = dataChunks[(int) (at / CHUNK_SIZE)];
+            int index = (int) (at % CHUNK_SIZE);
+            int n = Math.min(length - copied, chunk.limit() - index);
+            chunk.get(index, target, copied, n);
+            copied += n;
+        }
+    }
+
+    private static int skipRecord(byte[] raw, int pos) {
+        Scratch scratch = SCRATCH.get();
+        long codeLength = readVarLong(raw, pos, scratch);
+        pos = scratch.position + (int) codeLength;
+        readVarLong(raw, pos, scratch); // Expiry
+        long urlLength = readVarLong(raw, scratch.position, scratch);
+        return scratch.position + (int) urlLength;
+    }
+
+    private static boolean codeMatches(byte[] raw, int pos, int length, String shortCode) {
+        if (length != shortCode.length()) {
+            // Non-ASCII codes have more bytes than chars; compare the slow way
+            return new String(raw, pos, length, StandardCharsets.UTF_8).equals(shortCode);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = shortCode.charAt(i);
+            if (c >= 0x80 || raw[pos + i] != (byte) c) {
+                return c >= 0x80 && new String(raw, pos, length, StandardCharsets.UTF_8).equals(shortCode);
+            }
+        }
+        return true;
+    }
+
+    private static long readVarLong(byte[] raw, int pos, Scratch scratch) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        scratch.position = pos;
+        return value;
+    }
+
+    private static final class Scratch {
+        final Inflater inflater = new Inflater();
+        final byte[] four = new byte[4];
+        byte[] compressed = new byte[16 * 1024];
+        byte[] raw = new byte[32 * 1024];
+        int position;
+
+        byte[] compressed(int length) {
+            if (compressed.length < length) {
+                compressed = new byte[length];
+            }
+            return compressed;
+        }
+
+        byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.afsar.url.shortener.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+
+/**
+ * Streams mappings into an immutable snapshot file (see {@link SnapshotFormat}). Records are compressed
+ * block by block as they arrive; only one 64-bit hash per record is kept in memory to build the minimal
+ * perfect hash on {@link #close()}. The file is written next to the target and moved into place atomically,
+ * so readers never observe a partial snapshot.
+ */
+public class SnapshotWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_RECORDS = 64;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final int blockRecords;
+    private final long asOfEpochSecond;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+    private byte[] block = new byte[16 * 1024];
+    private int blockLength;
+    private int blockCount;
+    private byte[] compressed = new byte[16 * 1024];
+
+    private long[] hashes = new long[1024];
+    private long[] blockOffsets = new long[64];
+    private int recordCount;
+    private long position;
+    private boolean closed;
+
+    public SnapshotWriter(Path target, long asOfEpochSecond) throws IOException {
+        this(target, asOfEpochSecond, DEFAULT_BLOCK_RECORDS);
+    }
+
+    public SnapshotWriter(Path target, long asOfEpochSecond, int blockRecords) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        this.blockRecords = blockRecords;
+        this.asOfEpochSecond = asOfEpochSecond;
+    }
+
+    public void add(String shortCode, String longUrl, long expiresAtEpochSecond) throws IOException {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+        ensureBlockCapacity(code.length + url.length + 20);
+        blockLength = writeVarLong(block, blockLength, code.length);
+        System.arraycopy(code, 0, block, blockLength, code.length);
+        blockLength += code.length;
+        blockLength = writeVarLong(block, blockLength, expiresAtEpochSecond);
+        blockLength = writeVarLong(block, blockLength, url.length);
+        System.arraycopy(url, 0, block, blockLength, url.length);
+        blockLength += url.length;
+
+        if (recordCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        hashes[recordCount++] = SnapshotFormat.hash(shortCode);
+        if (recordCount % blockRecords == 0) {
+            flushBlock();
+        }
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0) {
+                flushBlock();
+            }
+            long tablesOffset = position;
+            int bucketCount = SnapshotFormat.bucketCount(recordCount);
+            int[] bucketOffsets = new int[bucketCount];
+            byte[] bucketFunctions = new byte[bucketCount];
+            int[] slots = buildPerfectHash(Arrays.copyOf(hashes, recordCount), bucketOffsets, bucketFunctions);
+
+            for (int offset : bucketOffsets) {
+                out.writeInt(offset);
+            }
+            out.write(bucketFunctions);
+            out.write(new byte[padding(bucketCount)]);
+            for (int ordinal : slots) {
+                out.writeInt(ordinal);
+            }
+            for (int i = 0; i < blockCount; i++) {
+                out.writeLong(blockOffsets[i]);
+            }
+            out.writeLong(tablesOffset); // End of the last block
+
+            // Footer
+            out.writeInt(SnapshotFormat.MAGIC);
+            out.writeInt(SnapshotFormat.VERSION);
+            out.writeInt(recordCount);
+            out.writeInt(blockRecords);
+            out.writeInt(bucketCount);
+            out.writeInt(blockCount);
+            out.writeLong(asOfEpochSecond);
+            out.writeLong(tablesOffset);
+            out.writeLong(0L); // Reserved
+            out.flush();
+            channel.force(true);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void flushBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block, 0, blockLength);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+        }
+        blockOffsets[blockCount++] = position;
+        out.writeInt(blockLength);
+        out.writeInt(compressedLength);
+        out.write(compressed, 0, compressedLength);
+        position += 8 + compressedLength;
+        blockLength = 0;
+    }
+
+    private void ensureBlockCapacity(int extra) {
+        if (blockLength + extra > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + extra));
+        }
+    }
+
+    /**
+     * Hash-and-displace construction. Buckets are placed largest first; for each one we look for a hash
+     * function that spreads its keys to distinct base slots, then for an offset that moves all of them
+     * onto free slots. Candidate offsets are taken from the free slots themselves, so the sparse tail of
+     * single-key buckets is placed without blind probing.
+     */
+    static int[] buildPerfectHash(long[] hashes, int[] bucketOffsets, byte[] bucketFunctions) {
+        int n = hashes.length;
+        int bucketCount = bucketOffsets.length;
+        int[] slots = new int[n];
+        if (n == 0) {
+            return slots;
+        }
+
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (long hash : hashes) {
+            bucketStarts[SnapshotFormat.bucket(hash, bucketCount) + 1]++;
+        }
+        int maxBucketSize = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[b + 1]);
+            bucketStarts[b + 1] += bucketStarts[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[SnapshotFormat.bucket(hashes[i], bucketCount)]++] = i;
+        }
+
+        // Counting sort of buckets by size, largest first
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            sizeStarts[maxBucketSize - (bucketStarts[b + 1] - bucketStarts[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxBucketSize; s++) {
+            sizeStarts[s + 1] += sizeStarts[s];
+        }
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[sizeStarts[maxBucketSize - (bucketStarts[b + 1] - bucketStarts[b])]++] = b;
+        }
+
+        BitSet taken = new BitSet(n);
+        int[] bases = new int[maxBucketSize];
+        for (int bucket : order) {
+            int start = bucketStarts[bucket];
+            int size = bucketStarts[bucket + 1] - start;
+            if (size == 0) {
+                break; // Remaining buckets are empty too
+            }
+            boolean placed = false;
+            for (int function = 0; function < SnapshotFormat.MAX_HASH_FUNCTIONS && !placed; function++) {
+                if (!distinctBases(hashes, members, start, size, function, n, bases)) {
+                    continue;
+                }
+                int offset = findOffset(taken, bases, size, n);
+                if (offset >= 0) {
+                    for (int j = 0; j < size; j++) {
+                        int slot = (int) (((long) bases[j] + offset) % n);
+                        taken.set(slot);
+                        slots[slot] = members[start + j];
+                    }
+                    bucketOffsets[bucket] = offset;
+                    bucketFunctions[bucket] = (byte) function;
+                    placed = true;
+                }
+            }
+            if (!placed) {
+                throw new IllegalStateException("Could not build perfect hash; duplicate short codes or 64-bit hash collision");
+            }
+        }
+        return slots;
+    }
+
+    private static boolean distinctBases(long[] hashes, int[] members, int start, int size, int function, int n, int[] bases) {
+        for (int j = 0; j < size; j++) {
+            bases[j] = SnapshotFormat.baseSlot(hashes[members[start + j]], function, n);
+            for (int k = 0; k < j; k++) {
+                if (bases[k] == bases[j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int findOffset(BitSet taken, int[] bases, int size, int n) {
+        // Walk free slots starting at the first key's base position, wrapping once
+        for (int pass = 0; pass < 2; pass++) {
+            int from = pass == 0 ? bases[0] : 0;
+            int to = pass == 0 ? n : bases[0];
+            for (int free = taken.nextClearBit(from); free < to; free = taken.nextClearBit(free + 1)) {
+                int offset = Math.floorMod(free - bases[0], n);
+                boolean fits = true;
+                for (int j = 1; j < size && fits; j++) {
+                    fits = !taken.get((int) (((long) bases[j] + offset) % n));
+                }
+                if (fits) {
+                    return offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    static int padding(int bucketCount) {
+        return (8 - bucketCount % 8) % 8;
+    }
+
+    private static int writeVarLong(byte[] buffer, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+}
@@ -0,0 +1,78 @@
+package com.afsar.url.shortener.tiering;
+
+import com.afsar.url.shortener.jfr.AccessFlushEvent;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which codes were redirected since the last flush and stamps {@code last_accessed_at} for them in
+ * one statement per chunk. Cache hits never reach the database, so without this a link that is hot purely
+ * in Redis would look cold to the tiering job. Recency only needs to be right to within a flush interval.
+ */
+@Component
+public class AccessTracker {
+
+    private static final int FLUSH_CHUNK = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTracker.class);
+
+    private final UrlArchiveRepository urlArchiveRepository;
+
+    private volatile Set<String> accessed = ConcurrentHashMap.newKeySet();
+
+    @Value("${url-shortener.tiering.enabled:false}")
+    private boolean enabled;
+
+    public AccessTracker(UrlArchiveRepository urlArchiveRepository) {
+        this.urlArchiveRepository = urlArchiveRepository;
+    }
+
+    public void record(String shortCode) {
+        if (enabled) {
+            accessed.add(shortCode);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.tiering.access-flush-interval:PT1M}")
+    public void flush() {
+        if (!enabled || accessed.isEmpty()) {
+            return;
+        }
+        AccessFlushEvent event = new AccessFlushEvent();
+        event.begin();
+        Set<String> batch = accessed;
+        accessed = ConcurrentHashMap.newKeySet(); // A code recorded during the swap is simply caught next time
+        LocalDateTime now = LocalDateTime.now();
+        List<String> chunk = new ArrayList<>(FLUSH_CHUNK);
+        try {
+            for (String shortCode : batch) {
+                chunk.add(shortCode);
+                if (chunk.size() == FLUSH_CHUNK) {
+                    urlArchiveRepository.touch(chunk, now);
+                    event.statements++;
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                urlArchiveRepository.touch(chunk, now);
+                event.statements++;
+            }
+        } catch (DataAccessException e) {
+            event.failed = true;
+            log.warn("Could not record access times for {} codes", batch.size(), e);
+        }
+        event.codes = batch.size();
+        event.commit();
+    }
+}
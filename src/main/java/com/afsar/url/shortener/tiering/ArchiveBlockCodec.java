@@ -0,0 +1,132 @@
+package com.afsar.url.shortener.tiering;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a batch of {@link ArchivedMapping}s as one Deflate block: {@code [raw length][deflated records]}.
+ * Each record is {@code [varint code length][code][varint url length][url][varint created][varint expires]
+ * [varint clicks]}. Mappings archived together tend to share hosts and paths, so a block of a few hundred
+ * compresses far better than the rows did individually.
+ */
+public final class ArchiveBlockCodec {
+
+    private ArchiveBlockCodec() {
+    }
+
+    public static byte[] encode(List<ArchivedMapping> mappings) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(mappings.size() * 96);
+        for (ArchivedMapping mapping : mappings) {
+            writeBytes(raw, mapping.shortCode().getBytes(StandardCharsets.UTF_8));
+            writeBytes(raw, mapping.longUrl().getBytes(StandardCharsets.UTF_8));
+            writeVarLong(raw, mapping.createdAtEpochSecond());
+            writeVarLong(raw, mapping.expiresAtEpochSecond());
+            writeVarLong(raw, mapping.clicks());
+        }
+        byte[] input = raw.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] output = new byte[4 + Math.max(64, input.length / 2)];
+            ByteBuffer.wrap(output).putInt(input.length);
+            int length = 4;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static List<ArchivedMapping> decode(byte[] block) {
+        byte[] raw = inflate(block);
+        List<ArchivedMapping> mappings = new ArrayList<>();
+        int[] pos = {0};
+        while (pos[0] < raw.length) {
+            String shortCode = readString(raw, pos);
+            String longUrl = readString(raw, pos);
+            mappings.add(new ArchivedMapping(shortCode, longUrl, readVarLong(raw, pos), readVarLong(raw, pos),
+                    readVarLong(raw, pos)));
+        }
+        return mappings;
+    }
+
+    /**
+     * Returns the mapping for {@code shortCode}, or {@code null} if the block does not contain it.
+     */
+    public static ArchivedMapping find(byte[] block, String shortCode) {
+        for (ArchivedMapping mapping : decode(block)) {
+            if (mapping.shortCode().equals(shortCode)) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] inflate(byte[] block) {
+        int rawLength = ByteBuffer.wrap(block).getInt();
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block, 4, block.length - 4);
+            int total = 0;
+            while (total < rawLength) {
+                int n = inflater.inflate(raw, total, rawLength - total);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated archive block");
+                }
+                total += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static String readString(byte[] raw, int[] pos) {
+        int length = (int) readVarLong(raw, pos);
+        String value = new String(raw, pos[0], length, StandardCharsets.UTF_8);
+        pos[0] += length;
+        return value;
+    }
+
+    private static long readVarLong(byte[] raw, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
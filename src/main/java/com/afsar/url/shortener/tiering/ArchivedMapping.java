@@ -0,0 +1,24 @@
+package com.afsar.url.shortener.tiering;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+
+/**
+ * A mapping as stored in an archive block.
+ *
+ * @param shortCode            the short code
+ * @param longUrl              the redirect target
+ * @param createdAtEpochSecond creation time as epoch seconds
+ * @param expiresAtEpochSecond expiry as epoch seconds, or {@link CachedUrl#NO_EXPIRY}
+ * @param clicks               click count at the time of archiving
+ */
+public record ArchivedMapping(String shortCode, String longUrl, long createdAtEpochSecond, long expiresAtEpochSecond,
+                              long clicks) {
+
+    public CachedUrl toCachedUrl(long version) {
+        return toCachedUrl(version, 0);
+    }
+
+    public CachedUrl toCachedUrl(long version, int flags) {
+        return new CachedUrl(longUrl, expiresAtEpochSecond, flags, null, version);
+    }
+}
@@ -0,0 +1,11 @@
+package com.afsar.url.shortener.tiering;
+
+/**
+ * Size and buffer-cache behaviour of the hot {@code url_mappings} table, from the PostgreSQL catalog.
+ *
+ * @param estimatedRows  planner row estimate ({@code pg_class.reltuples})
+ * @param totalBytes     heap, indexes and TOAST ({@code pg_total_relation_size})
+ * @param bufferHitRatio share of heap and index block reads served from shared buffers since the last stats reset
+ */
+public record TableStats(long estimatedRows, long totalBytes, double bufferHitRatio) {
+}
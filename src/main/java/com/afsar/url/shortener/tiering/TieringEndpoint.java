@@ -0,0 +1,42 @@
+package com.afsar.url.shortener.tiering;
+
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/tiering}: current hot-table statistics and the last run's before/after report.
+ * A POST runs the job immediately.
+ */
+@Component
+@Endpoint(id = "tiering")
+@ConditionalOnProperty(name = "url-shortener.tiering.enabled", havingValue = "true")
+public class TieringEndpoint {
+
+    private final TieringJob tieringJob;
+    private final UrlArchiveRepository urlArchiveRepository;
+
+    public TieringEndpoint(TieringJob tieringJob, UrlArchiveRepository urlArchiveRepository) {
+        this.tieringJob = tieringJob;
+        this.urlArchiveRepository = urlArchiveRepository;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("hotTable", urlArchiveRepository.hotTableStats());
+        status.put("lastRun", tieringJob.getLastReport());
+        return status;
+    }
+
+    @WriteOperation
+    public TieringReport run() {
+        return tieringJob.run();
+    }
+}
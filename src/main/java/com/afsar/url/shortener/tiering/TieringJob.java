@@ -0,0 +1,77 @@
+package com.afsar.url.shortener.tiering;
+
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Moves mappings not accessed within {@code url-shortener.tiering.cold-after} from {@code url_mappings} into
+ * the archive, one compressed block per transaction, then vacuums the hot table so the freed pages are reused
+ * and the statistics reflect the new size. Returning the space to the OS still takes {@code pg_repack} or
+ * {@code VACUUM FULL}, which this job does not run.
+ */
+@Component
+@ConditionalOnProperty(name = "url-shortener.tiering.enabled", havingValue = "true")
+public class TieringJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TieringJob.class);
+
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${url-shortener.tiering.cold-after:P90D}")
+    private Duration coldAfter;
+
+    @Value("${url-shortener.tiering.block-records:256}")
+    private int blockRecords;
+
+    @Value("${url-shortener.tiering.max-rows-per-run:1000000}")
+    private long maxRowsPerRun;
+
+    private volatile TieringReport lastReport;
+
+    public TieringJob(UrlArchiveRepository urlArchiveRepository, JdbcTemplate jdbcTemplate) {
+        this.urlArchiveRepository = urlArchiveRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(cron = "${url-shortener.tiering.cron:0 30 4 * * *}")
+    public synchronized TieringReport run() {
+        Instant startedAt = Instant.now();
+        TableStats before = urlArchiveRepository.hotTableStats();
+        LocalDateTime cutoff = LocalDateTime.now().minus(coldAfter);
+
+        long archived = 0;
+        int moved;
+        do {
+            moved = urlArchiveRepository.archiveColdBlock(cutoff, blockRecords);
+            archived += moved;
+        } while (moved == blockRecords && archived < maxRowsPerRun);
+        int emptyBlocks = urlArchiveRepository.deleteEmptyBlocks();
+        if (archived > 0) {
+            jdbcTemplate.execute("VACUUM (ANALYZE) url_mappings"); // Auto-commit; VACUUM cannot run in a transaction
+        }
+
+        TableStats after = urlArchiveRepository.hotTableStats();
+        TieringReport report = new TieringReport(startedAt, cutoff, archived, emptyBlocks, before, after,
+                Duration.between(startedAt, Instant.now()).toMillis());
+        lastReport = report;
+        log.info("Archived {} cold mappings: hot table {} -> {} rows, {} -> {} bytes, buffer hit ratio {} -> {}",
+                archived, before.estimatedRows(), after.estimatedRows(), before.totalBytes(), after.totalBytes(),
+                before.bufferHitRatio(), after.bufferHitRatio());
+        return report;
+    }
+
+    public TieringReport getLastReport() {
+        return lastReport;
+    }
+}
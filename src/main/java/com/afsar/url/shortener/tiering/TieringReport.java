@@ -0,0 +1,11 @@
+package com.afsar.url.shortener.tiering;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one tiering run, with hot-table statistics taken before and after.
+ */
+public record TieringReport(Instant startedAt, LocalDateTime cutoff, long archivedRows, int emptyBlocksDeleted,
+                            TableStats before, TableStats after, long durationMillis) {
+}
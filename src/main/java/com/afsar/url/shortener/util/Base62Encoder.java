@@ -2,7 +2,7 @@ package com.afsar.url.shortener.util;
 
 public class Base62Encoder {
 
-    private static final String BASE62_CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    public static final String BASE62_CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
     public static String encode(long value) {
         if (value == 0) {
@@ -16,6 +16,21 @@ public class Base62Encoder {
         return sb.reverse().toString();
     }
 
+    /**
+     * Whether {@code value} is non-empty and made only of Base62 characters.
+     */
+    public static boolean isBase62(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (BASE62_CHARS.indexOf(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static long decode(String encodedString) {
         long value = 0;
         for (char c : encodedString.toCharArray()) {
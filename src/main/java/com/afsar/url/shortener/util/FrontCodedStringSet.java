@@ -0,0 +1,152 @@
+package com.afsar.url.shortener.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable sorted set of short strings, front-coded in blocks: the first entry of each block is stored
+ * whole, the rest as (shared prefix length, suffix). Membership is a binary search over block heads plus a
+ * scan of at most {@link #BLOCK_SIZE} entries, and short codes take a few bytes each instead of a
+ * {@code String} object per entry.
+ * <p>
+ * Entries must be added in ascending unsigned byte order of their UTF-8 encoding (for ASCII codes that is
+ * {@link String#compareTo} order); duplicates are ignored.
+ */
+public class FrontCodedStringSet {
+
+    public static final int BLOCK_SIZE = 16;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+
+    private FrontCodedStringSet(byte[] data, int[] blockOffsets, int size) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long sizeInBytes() {
+        return data.length + blockOffsets.length * 4L;
+    }
+
+    public boolean contains(String value) {
+        if (size == 0) {
+            return false;
+        }
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+
+        // Last block whose head is <= key
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            int offset = blockOffsets[mid];
+            int length = data[offset] & 0xFF;
+            if (compare(data, offset + 1, length, key) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int pos = blockOffsets[low];
+        int end = low + 1 < blockOffsets.length ? blockOffsets[low + 1] : data.length;
+        byte[] current = SCRATCH.get();
+        int currentLength = data[pos++] & 0xFF;
+        System.arraycopy(data, pos, current, 0, currentLength);
+        pos += currentLength;
+        while (true) {
+            int cmp = compare(current, 0, currentLength, key);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp > 0 || pos >= end) {
+                return false;
+            }
+            int shared = data[pos++] & 0xFF;
+            int suffix = data[pos++] & 0xFF;
+            System.arraycopy(data, pos, current, shared, suffix);
+            pos += suffix;
+            currentLength = shared + suffix;
+        }
+    }
+
+    private static int compare(byte[] bytes, int offset, int length, byte[] key) {
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (bytes[offset + i] & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    public static class Builder {
+
+        private byte[] data = new byte[4096];
+        private int length;
+        private int[] blockOffsets = new int[64];
+        private int blockCount;
+        private int size;
+        private byte[] previous = new byte[0];
+
+        public Builder add(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 255) {
+                throw new IllegalArgumentException("Value too long for FrontCodedStringSet: " + value);
+            }
+            int cmp = compare(previous, 0, previous.length, bytes);
+            if (size > 0 && cmp == 0) {
+                return this;
+            }
+            if (size > 0 && cmp > 0) {
+                throw new IllegalArgumentException("Values must be added in ascending order: " + value);
+            }
+            ensureCapacity(bytes.length + 2);
+            if (size % BLOCK_SIZE == 0) {
+                if (blockCount == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+                }
+                blockOffsets[blockCount++] = length;
+                data[length++] = (byte) bytes.length;
+                System.arraycopy(bytes, 0, data, length, bytes.length);
+                length += bytes.length;
+            } else {
+                int shared = 0;
+                int max = Math.min(previous.length, bytes.length);
+                while (shared < max && previous[shared] == bytes[shared]) {
+                    shared++;
+                }
+                data[length++] = (byte) shared;
+                data[length++] = (byte) (bytes.length - shared);
+                System.arraycopy(bytes, shared, data, length, bytes.length - shared);
+                length += bytes.length - shared;
+            }
+            previous = bytes;
+            size++;
+            return this;
+        }
+
+        public FrontCodedStringSet build() {
+            return new FrontCodedStringSet(Arrays.copyOf(data, length), Arrays.copyOf(blockOffsets, blockCount), size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.afsar.url.shortener.util;
+
+import java.net.IDN;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Single-pass validator and canonicalizer for the http(s) URLs accepted by the shorten endpoint.
+ * <p>
+ * The canonical form has a lowercase scheme and host, no default port, uppercase hex digits in
+ * percent-escapes, escaped unreserved characters decoded, and unsafe or non-ASCII characters
+ * percent-encoded as UTF-8. Internationalized host names are converted to punycode.
+ * Input that is already canonical is returned as the same instance, without copying.
+ * <p>
+ * User info ({@code user@host}) and single-label hosts such as {@code localhost} are rejected.
+ */
+public class UrlCanonicalizer {
+
+    public static final int MAX_URL_LENGTH = 2048; // Matches the url_mappings.long_url column
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    // Characters allowed verbatim after the authority: unreserved, sub-delims, ':', '@', '/', '?' and '#'
+    private static final boolean[] ALLOWED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) ALLOWED[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) ALLOWED[c] = true;
+        for (char c = '0'; c <= '9'; c++) ALLOWED[c] = true;
+        for (char c : "-._~!$&'()*+,;=:@/?#".toCharArray()) ALLOWED[c] = true;
+    }
+
+    private final Set<String> blockedHosts;
+
+    public UrlCanonicalizer() {
+        this(Set.of());
+    }
+
+    public UrlCanonicalizer(Collection<String> blockedHosts) {
+        Set<String> hosts = new HashSet<>();
+        for (String host : blockedHosts) {
+            if (host != null && !host.isBlank()) {
+                hosts.add(host.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.blockedHosts = Set.copyOf(hosts);
+    }
+
+    /**
+     * Validates {@code url} and returns its canonical form.
+     *
+     * @throws IllegalArgumentException if the URL is malformed, too long, or its host is blocked
+     */
+    public String canonicalize(String url) {
+        if (url == null || url.isEmpty() || url.length() > MAX_URL_LENGTH) {
+            throw invalid(url);
+        }
+        int n = url.length();
+        StringBuilder out = null; // Only allocated once the input turns out not to be canonical
+
+        // Scheme
+        boolean https;
+        int i;
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            https = true;
+            i = 8;
+        } else if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            https = false;
+            i = 7;
+        } else {
+            throw invalid(url);
+        }
+        if (!url.startsWith(https ? "https" : "http")) {
+            out = new StringBuilder(n).append(https ? "https://" : "http://");
+        }
+
+        // Authority
+        int authorityEnd = i;
+        while (authorityEnd < n) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            authorityEnd++;
+        }
+        int hostEnd = authorityEnd;
+        int portStart = -1;
+        if (i < authorityEnd && url.charAt(i) == '[') {
+            int close = url.indexOf(']', i);
+            if (close < 0 || close >= authorityEnd) {
+                throw invalid(url);
+            }
+            hostEnd = close + 1;
+            if (hostEnd < authorityEnd) {
+                if (url.charAt(hostEnd) != ':') {
+                    throw invalid(url);
+                }
+                portStart = hostEnd + 1;
+            }
+        } else {
+            for (int j = i; j < authorityEnd; j++) {
+                if (url.charAt(j) == ':') {
+                    hostEnd = j;
+                    portStart = j + 1;
+                    break;
+                }
+            }
+        }
+        if (hostEnd == i) {
+            throw invalid(url);
+        }
+
+        boolean hasUppercase = false;
+        boolean hasNonAscii = false;
+        for (int j = i; j < hostEnd; j++) {
+            char c = url.charAt(j);
+            if (c >= 0x80) {
+                hasNonAscii = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                hasUppercase = true;
+            }
+        }
+        String rewrittenHost = null;
+        if (hasNonAscii) {
+            rewrittenHost = toAsciiHost(url, i, hostEnd);
+        } else if (hasUppercase) {
+            rewrittenHost = url.substring(i, hostEnd).toLowerCase(Locale.ROOT);
+        }
+        if (rewrittenHost != null ? !isValidHost(rewrittenHost, 0, rewrittenHost.length())
+                : !isValidHost(url, i, hostEnd)) {
+            throw invalid(url);
+        }
+        if (!blockedHosts.isEmpty()) {
+            String host = rewrittenHost != null ? rewrittenHost : url.substring(i, hostEnd);
+            if (isBlocked(host)) {
+                throw new IllegalArgumentException("URL host is not allowed: " + host);
+            }
+        }
+        if (rewrittenHost != null) {
+            out = ensure(out, url, i).append(rewrittenHost);
+        } else if (out != null) {
+            out.append(url, i, hostEnd);
+        }
+
+        // Port
+        if (portStart >= 0) {
+            int port = 0;
+            for (int j = portStart; j < authorityEnd; j++) {
+                char c = url.charAt(j);
+                if (c < '0' || c > '9') {
+                    throw invalid(url);
+                }
+                port = port * 10 + (c - '0');
+                if (port > 65535) {
+                    throw invalid(url);
+                }
+            }
+            boolean empty = portStart == authorityEnd;
+            if (!empty && port == 0) {
+                throw invalid(url);
+            }
+            boolean defaultPort = empty || port == (https ? 443 : 80);
+            if (defaultPort || url.charAt(portStart) == '0') {
+                out = ensure(out, url, portStart - 1);
+                if (!defaultPort) {
+                    out.append(':').append(port);
+                }
+            } else if (out != null) {
+                out.append(url, portStart - 1, authorityEnd);
+            }
+        }
+
+        // Path, query and fragment
+        boolean inFragment = false;
+        for (int j = authorityEnd; j < n; j++) {
+            char c = url.charAt(j);
+            if (c == '%') {
+                int hi = j + 1 < n ? hexValue(url.charAt(j + 1)) : -1;
+                int lo = j + 2 < n ? hexValue(url.charAt(j + 2)) : -1;
+                if (hi < 0 || lo < 0) {
+                    throw invalid(url);
+                }
+                int value = (hi << 4) | lo;
+                if (isUnreserved(value)) {
+                    out = ensure(out, url, j).append((char) value);
+                } else if (isLowerHex(url.charAt(j + 1)) || isLowerHex(url.charAt(j + 2))) {
+                    out = ensure(out, url, j).append('%').append(HEX[hi]).append(HEX[lo]);
+                } else if (out != null) {
+                    out.append(url, j, j + 3);
+                }
+                j += 2;
+            } else if (c < 0x80 && ALLOWED[c] && !(c == '#' && inFragment)) {
+                inFragment |= c == '#';
+                if (out != null) {
+                    out.append(c);
+                }
+            } else if (c <= 0x20 || c == 0x7F) {
+                throw invalid(url); // Whitespace and control characters are never accepted
+            } else {
+                int codePoint = url.codePointAt(j);
+                if (Character.isSurrogate(c) && !Character.isSupplementaryCodePoint(codePoint)) {
+                    throw invalid(url); // Unpaired surrogate
+                }
+                out = ensure(out, url, j);
+                appendPercentEncoded(out, codePoint);
+                j += Character.charCount(codePoint) - 1;
+            }
+        }
+
+        if (out == null) {
+            return url;
+        }
+        if (out.length() > MAX_URL_LENGTH) {
+            throw invalid(url);
+        }
+        return out.toString();
+    }
+
+    /**
+     * The host of a stored URL as {@link #canonicalize} writes it: lowercase, punycode, no port. Also accepts
+     * rows that predate canonicalization (mixed case, user info). Returns {@code null} if there is no host.
+     */
+    public static String hostOf(String url) {
+        int scheme = url == null ? -1 : url.indexOf("://");
+        if (scheme < 0) {
+            return null;
+        }
+        int start = scheme + 3;
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?' && url.charAt(end) != '#') {
+            end++;
+        }
+        int at = url.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+        int hostEnd = end;
+        if (start < end && url.charAt(start) == '[') {
+            int close = url.indexOf(']', start);
+            hostEnd = close < 0 || close >= end ? end : close + 1;
+        } else {
+            int colon = url.indexOf(':', start);
+            if (colon >= 0 && colon < end) {
+                hostEnd = colon;
+            }
+        }
+        return hostEnd == start ? null : url.substring(start, hostEnd).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes a host given by an operator (e.g. {@code Bücher.Example.}) to the form {@link #hostOf} returns.
+     *
+     * @throws IllegalArgumentException if it is not a valid host name or address
+     */
+    public static String normalizeHost(String host) {
+        String trimmed = host == null ? "" : host.trim();
+        if (trimmed.endsWith(".")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        String normalized;
+        try {
+            normalized = IDN.toASCII(trimmed, IDN.USE_STD3_ASCII_RULES).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            normalized = trimmed.toLowerCase(Locale.ROOT); // IPv6 literals are not IDN labels
+        }
+        if (normalized.isEmpty() || !isValidHost(normalized, 0, normalized.length())) {
+            throw new IllegalArgumentException("Invalid host: " + host);
+        }
+        return normalized;
+    }
+
+    private boolean isBlocked(String host) {
+        if (blockedHosts.contains(host)) {
+            return true;
+        }
+        // Blocking a domain also blocks its subdomains: one hash probe per parent label
+        for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+            if (blockedHosts.contains(host.substring(dot + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValidHost(CharSequence s, int from, int to) {
+        if (s.charAt(from) == '[') {
+            return isValidIpv6Literal(s, from, to);
+        }
+        if (to - from > 253) {
+            return false;
+        }
+        int labels = 0;
+        int labelStart = from;
+        int labelValue = 0;
+        boolean labelNumeric = true;
+        boolean allNumeric = true;
+        boolean lastLabelStartsWithLetter = false;
+        int lastLabelLength = 0;
+        for (int j = from; j <= to; j++) {
+            char c = j < to ? s.charAt(j) : '.';
+            if (c == '.') {
+                int length = j - labelStart;
+                if (length == 0 || length > 63 || s.charAt(labelStart) == '-' || s.charAt(j - 1) == '-') {
+                    return false;
+                }
+                if (labelNumeric && (length > 3 || labelValue > 255)) {
+                    labelNumeric = false; // Too big for an IPv4 octet
+                }
+                allNumeric &= labelNumeric;
+                lastLabelStartsWithLetter = isAsciiLetter(s.charAt(labelStart));
+                lastLabelLength = length;
+                labels++;
+                labelStart = j + 1;
+                labelValue = 0;
+                labelNumeric = true;
+            } else if (c >= '0' && c <= '9') {
+                labelValue = labelValue * 10 + (c - '0');
+            } else if (isAsciiLetter(c) || c == '-') {
+                labelNumeric = false;
+            } else {
+                return false;
+            }
+        }
+        if (allNumeric) {
+            return labels == 4; // Dotted IPv4 address
+        }
+        // Domain name: at least one dot, and a top-level label that starts with a letter
+        return labels >= 2 && lastLabelStartsWithLetter && lastLabelLength >= 2;
+    }
+
+    private static boolean isValidIpv6Literal(CharSequence s, int from, int to) {
+        if (to - from < 4 || s.charAt(to - 1) != ']') {
+            return false;
+        }
+        int colons = 0;
+        for (int j = from + 1; j < to - 1; j++) {
+            char c = s.charAt(j);
+            if (c == ':') {
+                colons++;
+            } else if (hexValue(c) < 0 && c != '.') {
+                return false;
+            }
+        }
+        return colons >= 2 && colons <= 7;
+    }
+
+    private static String toAsciiHost(String url, int from, int to) {
+        try {
+            return IDN.toASCII(url.substring(from, to), IDN.USE_STD3_ASCII_RULES).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            throw invalid(url);
+        }
+    }
+
+    private static StringBuilder ensure(StringBuilder out, String url, int copiedUpTo) {
+        if (out != null) {
+            return out;
+        }
+        return new StringBuilder(url.length() + 16).append(url, 0, copiedUpTo);
+    }
+
+    private static void appendPercentEncoded(StringBuilder out, int codePoint) {
+        if (codePoint < 0x80) {
+            appendEscape(out, codePoint);
+        } else if (codePoint < 0x800) {
+            appendEscape(out, 0xC0 | (codePoint >> 6));
+            appendEscape(out, 0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendEscape(out, 0xE0 | (codePoint >> 12));
+            appendEscape(out, 0x80 | ((codePoint >> 6) & 0x3F));
+            appendEscape(out, 0x80 | (codePoint & 0x3F));
+        } else {
+            appendEscape(out, 0xF0 | (codePoint >> 18));
+            appendEscape(out, 0x80 | ((codePoint >> 12) & 0x3F));
+            appendEscape(out, 0x80 | ((codePoint >> 6) & 0x3F));
+            appendEscape(out, 0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private static void appendEscape(StringBuilder out, int b) {
+        out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    private static boolean isUnreserved(int c) {
+        return isAsciiLetter((char) c) || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isLowerHex(char c) {
+        return c >= 'a' && c <= 'f';
+    }
+
+    private static IllegalArgumentException invalid(String url) {
+        return new IllegalArgumentException("Invalid URL format: " + url);
+    }
+}
@@ -0,0 +1,18 @@
+package com.afsar.url.shortener.writebehind;
+
+/**
+ * A mapping as recorded in the {@link ShortenLog}: durable on local disk, not necessarily in Postgres yet.
+ *
+ * @param sequence             position in the log, strictly increasing
+ * @param shortCode            the short code
+ * @param longUrl              the canonical long URL
+ * @param createdAtEpochMilli  when the mapping was accepted; drain lag is measured from here
+ * @param expiresAtEpochSecond expiry as epoch seconds, or {@code 0} for none
+ */
+public record LoggedMapping(long sequence, String shortCode, String longUrl, long createdAtEpochMilli,
+                            long expiresAtEpochSecond) {
+
+    LoggedMapping withSequence(long sequence) {
+        return new LoggedMapping(sequence, shortCode, longUrl, createdAtEpochMilli, expiresAtEpochSecond);
+    }
+}
@@ -0,0 +1,351 @@
+package com.afsar.url.shortener.writebehind;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, fsync'd log of accepted mappings, split into segments named after their first sequence number.
+ * <p>
+ * Appends are group-committed: callers queue their record and block, while a single writer thread writes
+ * everything queued so far and issues one {@code fsync} for the whole group. Each record is framed as
+ * {@code [payload length][CRC32][payload]}, so a torn tail left by a crash is detected and dropped on replay.
+ * A checkpoint file records the highest sequence known to be in Postgres; segments entirely below it are deleted.
+ * Mappings that can never be drained are moved to a dead-letter file in the same record format.
+ */
+public class ShortenLog implements Closeable {
+
+    static final String SEGMENT_SUFFIX = ".log";
+    static final String CHECKPOINT_FILE = "drained.checkpoint";
+    static final String DEAD_LETTER_FILE = "dead-letter.records";
+
+    private static final int MAX_GROUP_SIZE = 4096;
+    private static final int MAX_PAYLOAD_LENGTH = 64 * 1024;
+    private static final long APPEND_TIMEOUT_SECONDS = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(ShortenLog.class);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Consumer<LoggedMapping> onDurable;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Object lifecycleLock = new Object(); // Orders appends' running check and enqueue against close
+
+    private FileChannel segment;
+    private long segmentSize;
+    private long nextSequence;
+    private volatile boolean running = true;
+
+    private record PendingAppend(LoggedMapping mapping, CompletableFuture<LoggedMapping> durable) {
+    }
+
+    private ShortenLog(Path directory, long segmentBytes, Consumer<LoggedMapping> onDurable) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.onDurable = onDurable;
+        this.writer = Thread.ofPlatform().name("shorten-log-writer").daemon().unstarted(this::writeLoop);
+    }
+
+    /**
+     * Opens the log, hands every record after the checkpoint to {@code onDurable} (in sequence order) and
+     * starts the writer. From then on {@code onDurable} is called by the writer thread once a record is fsync'd.
+     */
+    public static ShortenLog open(Path directory, long segmentBytes, Consumer<LoggedMapping> onDurable) throws IOException {
+        Files.createDirectories(directory);
+        ShortenLog shortenLog = new ShortenLog(directory, segmentBytes, onDurable);
+        shortenLog.replay();
+        shortenLog.startSegment();
+        shortenLog.writer.start();
+        return shortenLog;
+    }
+
+    /**
+     * Blocks until the record is durable and returns it with its sequence number.
+     */
+    public LoggedMapping append(String shortCode, String longUrl, long createdAtEpochMilli, long expiresAtEpochSecond) {
+        PendingAppend pending = new PendingAppend(
+                new LoggedMapping(0, shortCode, longUrl, createdAtEpochMilli, expiresAtEpochSecond), new CompletableFuture<>());
+        synchronized (lifecycleLock) {
+            if (!running) {
+                throw new IllegalStateException("Shorten log is closed");
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.durable().get(APPEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shorten log", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException io ? io : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // The writer skips appends that are already done, so this one is only written if it was in flight
+            pending.durable().completeExceptionally(e);
+            throw new IllegalStateException("Timed out waiting for the shorten log", e);
+        }
+    }
+
+    /**
+     * Records that every sequence up to {@code sequence} is in Postgres and deletes segments no longer needed.
+     */
+    public void checkpoint(long sequence) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.US_ASCII);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // A segment can go once the segment after it starts at or below the first undrained sequence
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= sequence + 1) {
+                Files.deleteIfExists(segmentPath(starts.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Durably appends {@code mapping} to the dead-letter file, before a checkpoint past it drops it from the log.
+     * Only the drainer calls this.
+     */
+    public void deadLetter(LoggedMapping mapping) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        writeRecord(bytes, mapping);
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Every mapping dead-lettered in {@code directory}, oldest first, for reconciliation.
+     */
+    public static List<LoggedMapping> readDeadLetters(Path directory) throws IOException {
+        Path path = directory.resolve(DEAD_LETTER_FILE);
+        List<LoggedMapping> mappings = new ArrayList<>();
+        if (Files.exists(path)) {
+            readRecords(path, mappings::add);
+        }
+        return mappings;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lifecycleLock) {
+            running = false; // No append can enqueue after this
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever the writer did not get to before it stopped would otherwise leave its caller waiting
+        List<PendingAppend> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        IllegalStateException closed = new IllegalStateException("Shorten log is closed");
+        abandoned.forEach(pending -> pending.durable().completeExceptionally(closed));
+        segment.close();
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                group.removeIf(pending -> pending.durable().isDone()); // Given up on by its caller
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> group) {
+        List<LoggedMapping> written = new ArrayList<>(group.size());
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(group.size() * 128);
+            long sequence = nextSequence;
+            for (PendingAppend pending : group) {
+                LoggedMapping mapping = pending.mapping().withSequence(sequence++);
+                writeRecord(bytes, mapping);
+                written.add(mapping);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false); // One fsync for the whole group
+            nextSequence = sequence;
+            segmentSize += bytes.size();
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException("Could not append to shorten log", e);
+            group.forEach(pending -> pending.durable().completeExceptionally(failure));
+            discardFailedGroup(group.size());
+            rotate(); // A partial write would hide every later record in this segment from replay
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            onDurable.accept(written.get(i));
+            group.get(i).durable().complete(written.get(i));
+        }
+        if (segmentSize >= segmentBytes) {
+            rotate();
+        }
+    }
+
+    /**
+     * Frames of a failed group that did reach the file are CRC-valid, so replay would bring back mappings whose
+     * callers were told they failed. Cuts the segment back to its last committed size and, in case that fails
+     * too, never hands out the group's sequence numbers again.
+     */
+    private void discardFailedGroup(int groupSize) {
+        long firstFailed = nextSequence;
+        nextSequence += groupSize;
+        try {
+            segment.truncate(segmentSize);
+            segment.force(false);
+        } catch (IOException e) {
+            log.error("Could not discard failed shorten log appends {} to {} in {}; a restart may replay them",
+                    firstFailed, nextSequence - 1, directory, e);
+        }
+    }
+
+    private void rotate() {
+        try {
+            segment.close();
+            startSegment();
+        } catch (IOException e) {
+            log.error("Could not start a new shorten log segment in {}", directory, e);
+        }
+    }
+
+    private void replay() throws IOException {
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        long checkpoint = Files.exists(checkpointFile)
+                ? Long.parseLong(Files.readString(checkpointFile, StandardCharsets.US_ASCII).trim())
+                : -1;
+        nextSequence = checkpoint + 1;
+        int[] replayed = {0};
+        for (long start : segmentStarts()) {
+            readRecords(segmentPath(start), mapping -> {
+                nextSequence = Math.max(nextSequence, mapping.sequence() + 1);
+                if (mapping.sequence() > checkpoint) {
+                    onDurable.accept(mapping);
+                    replayed[0]++;
+                }
+            });
+        }
+        if (replayed[0] > 0) {
+            log.info("Replayed {} undrained mappings from {}", replayed[0], directory);
+        }
+    }
+
+    private static void readRecords(Path path, Consumer<LoggedMapping> consumer) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > MAX_PAYLOAD_LENGTH || length > buffer.remaining()
+                    || crc != crc(data, buffer.position(), length)) {
+                log.warn("Dropping torn tail of {} at offset {}", path, buffer.position() - 8);
+                break;
+            }
+            consumer.accept(readPayload(data, buffer.position(), length));
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private void startSegment() throws IOException {
+        // Always a fresh segment, so appends never follow a torn tail. A file already named after nextSequence
+        // can only hold records that failed their checksum on replay.
+        segment = FileChannel.open(segmentPath(nextSequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentSize = 0;
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static void writeRecord(ByteArrayOutputStream bytes, LoggedMapping mapping) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeLong(mapping.sequence());
+        payload.writeLong(mapping.createdAtEpochMilli());
+        payload.writeLong(mapping.expiresAtEpochSecond());
+        payload.writeUTF(mapping.shortCode());
+        payload.writeUTF(mapping.longUrl());
+        byte[] data = payloadBytes.toByteArray();
+
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(data.length);
+        out.writeInt(crc(data, 0, data.length));
+        out.write(data);
+    }
+
+    private static LoggedMapping readPayload(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        long sequence = in.readLong();
+        long createdAt = in.readLong();
+        long expiresAt = in.readLong();
+        return new LoggedMapping(sequence, in.readUTF(), in.readUTF(), createdAt, expiresAt);
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,294 @@
+package com.afsar.url.shortener.writebehind;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in write-behind path for {@code POST /shorten} ({@code url-shortener.write-behind.enabled}).
+ * <p>
+ * A new mapping is made durable in the local {@link ShortenLog} and published to the cache, and the request
+ * returns. A scheduled drainer inserts logged mappings into Postgres in large batches and advances the log
+ * checkpoint; on restart everything after the checkpoint is replayed. Until a mapping is drained, redirects are
+ * served from the cache, or from the undrained set on this replica if the cache entry is gone.
+ * <p>
+ * A mapping Postgres rejects, or whose code turns out to belong to a different link (the cache claim expired or
+ * was evicted before the drain), is moved to the log's dead-letter file for reconciliation and its cache entry
+ * evicted, so one bad row never holds up the rest.
+ */
+@Component
+public class WriteBehindShortener {
+
+    private static final String INSERT =
+            "INSERT INTO url_mappings (short_code, long_url, created_at, expires_at, clicks, destination_host) "
+                    + "VALUES (?, ?, ?, ?, 0, ?) "
+                    + "ON CONFLICT (short_code) DO NOTHING"; // Replays after a crash between insert and checkpoint
+    private static final String FIND_LONG_URL = "SELECT long_url FROM url_mappings WHERE short_code = ?";
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindShortener.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UrlMappingCache urlMappingCache;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentLinkedQueue<LoggedMapping> undrained = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, LoggedMapping> pendingByCode = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LoggedMapping> pendingByLongUrl = new ConcurrentHashMap<>();
+
+    @Value("${url-shortener.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${url-shortener.write-behind.directory:/var/lib/url-shortener/write-behind}")
+    private String directory;
+
+    @Value("${url-shortener.write-behind.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${url-shortener.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    private ShortenLog shortenLog;
+    private Counter drainedCounter;
+    private Counter conflictCounter;
+    private Counter deadLetterCounter;
+    private Timer drainTimer;
+
+    public WriteBehindShortener(JdbcTemplate jdbcTemplate, UrlMappingCache urlMappingCache, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.urlMappingCache = urlMappingCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("urlshortener.writebehind.pending", undrained, ConcurrentLinkedQueue::size)
+                .description("Mappings acknowledged but not yet in Postgres")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener.writebehind.lag", this, WriteBehindShortener::lagSeconds)
+                .description("Age of the oldest undrained mapping")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        drainedCounter = meterRegistry.counter("urlshortener.writebehind.drained");
+        conflictCounter = meterRegistry.counter("urlshortener.writebehind.conflicts");
+        deadLetterCounter = meterRegistry.counter("urlshortener.writebehind.deadlettered");
+        drainTimer = meterRegistry.timer("urlshortener.writebehind.drain.batch");
+
+        shortenLog = ShortenLog.open(Path.of(directory), segmentSize.toBytes(), this::onDurable);
+        republishReplayed();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (shortenLog == null) {
+            return;
+        }
+        shortenLog.close();
+        drain(); // Best effort; anything left is replayed on the next start
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Makes the mapping durable in the local log; returns once it has been fsync'd.
+     */
+    public LoggedMapping append(UrlMapping urlMapping) {
+        long createdAt = urlMapping.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return shortenLog.append(urlMapping.getShortCode(), urlMapping.getLongUrl(), createdAt,
+                CachedUrl.toEpochSecond(urlMapping.getExpiresAt()));
+    }
+
+    public boolean isPending(String shortCode) {
+        return pendingByCode.containsKey(shortCode);
+    }
+
+    public CachedUrl findPending(String shortCode) {
+        LoggedMapping pending = pendingByCode.get(shortCode);
+        return pending == null ? null : new CachedUrl(pending.longUrl(), pending.expiresAtEpochSecond(), 0);
+    }
+
+    public Optional<UrlMapping> findPendingByLongUrl(String longUrl) {
+        return Optional.ofNullable(pendingByLongUrl.get(longUrl))
+                .filter(pending -> pending.expiresAtEpochSecond() == CachedUrl.NO_EXPIRY
+                        || pending.expiresAtEpochSecond() > Instant.now().getEpochSecond())
+                .map(WriteBehindShortener::toUrlMapping);
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.write-behind.drain-interval:PT0.2S}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            while (drainBatch() == batchSize) {
+                // Keep going while full batches are available
+            }
+        } catch (DataAccessException | UncheckedIOException e) {
+            log.warn("Write-behind drain failed, {} mappings pending; retrying on the next run", undrained.size(), e);
+        }
+    }
+
+    private int drainBatch() {
+        List<LoggedMapping> batch = new ArrayList<>(batchSize);
+        Iterator<LoggedMapping> iterator = undrained.iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            batch.add(iterator.next());
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        List<LoggedMapping> skipped = new ArrayList<>();
+        try {
+            int[][] results = jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), WriteBehindShortener::bind);
+            int index = 0;
+            for (int[] chunk : results) {
+                for (int updated : chunk) {
+                    if (updated == 0) {
+                        skipped.add(batch.get(index));
+                    }
+                    index++;
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            // The batch is one transaction, so a single bad row rolled back the lot; find it row by row. Any
+            // other failure (connection, timeout) propagates and the whole batch is retried on the next run.
+            log.warn("Write-behind batch of {} mappings was rejected; inserting one by one", batch.size(), e);
+            for (LoggedMapping mapping : batch) {
+                try {
+                    if (jdbcTemplate.update(INSERT, ps -> bind(ps, mapping)) == 0) {
+                        skipped.add(mapping);
+                    }
+                } catch (DataIntegrityViolationException rowFailure) {
+                    deadLetter(mapping, rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        for (LoggedMapping mapping : skipped) {
+            // Same long URL (or deleted since): a replay of a row inserted just before a crash. A different one
+            // means another writer took the code after this one's cache claim was lost, and the acknowledged
+            // mapping is not stored.
+            String existing = jdbcTemplate.query(FIND_LONG_URL, rs -> rs.next() ? rs.getString(1) : null, mapping.shortCode());
+            if (existing != null && !existing.equals(mapping.longUrl())) {
+                conflictCounter.increment();
+                deadLetter(mapping, "short code already belongs to " + existing);
+            }
+        }
+        drainTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        // Only the drainer removes, so the head of the queue is exactly this batch
+        for (LoggedMapping mapping : batch) {
+            undrained.poll();
+            pendingByCode.remove(mapping.shortCode(), mapping);
+            pendingByLongUrl.remove(mapping.longUrl(), mapping);
+        }
+        drainedCounter.increment(batch.size());
+        try {
+            shortenLog.checkpoint(batch.get(batch.size() - 1).sequence());
+        } catch (IOException e) {
+            log.warn("Could not write write-behind checkpoint; drained mappings will be re-inserted after a restart", e);
+        }
+        return batch.size();
+    }
+
+    private void deadLetter(LoggedMapping mapping, String reason) {
+        try {
+            shortenLog.deadLetter(mapping); // Before the checkpoint moves past it
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dead-letter write-behind mapping '" + mapping.shortCode() + "'", e);
+        }
+        deadLetterCounter.increment();
+        log.error("Write-behind mapping '{}' -> {} was not stored ({}); moved to the dead-letter file in {}",
+                mapping.shortCode(), mapping.longUrl(), reason, directory);
+        try {
+            urlMappingCache.evict(mapping.shortCode()); // Redirects fall back to whatever Postgres holds
+        } catch (DataAccessException e) {
+            log.warn("Could not evict the cache claim for dead-lettered mapping '{}'", mapping.shortCode(), e);
+        }
+    }
+
+    private void onDurable(LoggedMapping mapping) {
+        pendingByCode.put(mapping.shortCode(), mapping);
+        pendingByLongUrl.put(mapping.longUrl(), mapping);
+        undrained.add(mapping);
+    }
+
+    private void republishReplayed() {
+        // Redis may have lost these along with this process; put them back so redirects keep working
+        try {
+            for (LoggedMapping mapping : undrained) {
+                urlMappingCache.put(mapping.shortCode(), new CachedUrl(mapping.longUrl(), mapping.expiresAtEpochSecond(), 0));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not republish replayed mappings to the cache", e);
+        }
+    }
+
+    private double lagSeconds() {
+        LoggedMapping oldest = undrained.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.createdAtEpochMilli()) / 1000.0;
+    }
+
+    private static void bind(PreparedStatement ps, LoggedMapping mapping) throws SQLException {
+        ps.setString(1, mapping.shortCode());
+        ps.setString(2, mapping.longUrl());
+        ps.setTimestamp(3, Timestamp.valueOf(toLocalDateTime(mapping.createdAtEpochMilli())));
+        ps.setTimestamp(4, mapping.expiresAtEpochSecond() == CachedUrl.NO_EXPIRY
+                ? null
+                : Timestamp.valueOf(toLocalDateTime(mapping.expiresAtEpochSecond() * 1000)));
+        ps.setString(5, UrlCanonicalizer.hostOf(mapping.longUrl()));
+    }
+
+    private static UrlMapping toUrlMapping(LoggedMapping mapping) {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(mapping.shortCode());
+        urlMapping.setLongUrl(mapping.longUrl());
+        urlMapping.setCreatedAt(toLocalDateTime(mapping.createdAtEpochMilli()));
+        if (mapping.expiresAtEpochSecond() != CachedUrl.NO_EXPIRY) {
+            urlMapping.setExpiresAt(toLocalDateTime(mapping.expiresAtEpochSecond() * 1000));
+        }
+        return urlMapping;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
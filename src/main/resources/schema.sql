@@ -0,0 +1,2 @@
+-- Runs before Hibernate's schema update (spring.sql.init.mode=always), so column defaults can reference it
+CREATE SEQUENCE IF NOT EXISTS url_mapping_version_seq;
@@ -0,0 +1,109 @@
+package com.afsar.url.shortener.benchmark;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.repository.UrlLookupRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-redirect cost of the DB fallback: the previous managed-entity path (find, increment, flush in a
+ * read-write transaction) against {@link UrlLookupRepository}'s two-column projection plus in-place
+ * click update. Needs Docker for the Postgres container. Run {@link #main} and compare the
+ * {@code gc.alloc.rate.norm} column for per-operation allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlLookupBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private PostgreSQLContainer<?> postgresContainer;
+    private HikariDataSource dataSource;
+    private SessionFactory sessionFactory;
+    private UrlLookupRepository urlLookupRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgresContainer = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"));
+        postgresContainer.start();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgresContainer.getJdbcUrl());
+        dataSource.setUsername(postgresContainer.getUsername());
+        dataSource.setPassword(postgresContainer.getPassword());
+        dataSource.addDataSourceProperty("prepareThreshold", "1");
+
+        // As the application does before its schema update: column defaults reference url_mapping_version_seq
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        Configuration configuration = new Configuration().addAnnotatedClass(UrlMapping.class);
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+        sessionFactory = configuration.buildSessionFactory();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO url_mappings (short_code, long_url, created_at, clicks) "
+                + "SELECT 'c' || g, 'https://www.example.com/articles/' || g, now(), 0 FROM generate_series(0, ?) g", ROWS - 1);
+        urlLookupRepository = new UrlLookupRepository(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        dataSource.close();
+        postgresContainer.stop();
+    }
+
+    @Benchmark
+    public String managedEntity() {
+        String shortCode = randomShortCode();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            UrlMapping urlMapping = session.find(UrlMapping.class, shortCode);
+            urlMapping.setClicks(urlMapping.getClicks() + 1);
+            session.getTransaction().commit(); // Flush with dirty checking, as the old getLongUrl did
+            return urlMapping.getLongUrl();
+        }
+    }
+
+    @Benchmark
+    public String projection() {
+        String shortCode = randomShortCode();
+        CachedUrl cachedUrl = urlLookupRepository.findByShortCode(shortCode).orElseThrow();
+        urlLookupRepository.incrementClicks(shortCode);
+        return cachedUrl.longUrl();
+    }
+
+    private static String randomShortCode() {
+        return "c" + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UrlLookupBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.afsar.url.shortener.benchmark;
+
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import org.apache.commons.validator.routines.UrlValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the commons-validator check previously used on the shorten path with {@link UrlCanonicalizer}.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.afsar.url.shortener.benchmark.UrlValidationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlValidationBenchmark {
+
+    private final String[] urls = {
+            "https://www.google.com/search?q=junit+mockito+cucumber",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+            "HTTP://Example.COM:80/Some/Path/%7euser?x=1&y=2#frag",
+            "https://docs.example.org/a/very/long/path/segment/that/keeps/going/index.html?utm_source=newsletter"
+    };
+
+    private UrlValidator urlValidator;
+    private UrlCanonicalizer urlCanonicalizer;
+
+    @Setup
+    public void setUp() {
+        urlValidator = new UrlValidator(new String[]{"http", "https"});
+        urlCanonicalizer = new UrlCanonicalizer(List.of("blocked.example", "malware.example"));
+    }
+
+    @Benchmark
+    public void commonsValidator(Blackhole blackhole) {
+        for (String url : urls) {
+            blackhole.consume(urlValidator.isValid(url));
+        }
+    }
+
+    @Benchmark
+    public void canonicalizer(Blackhole blackhole) {
+        for (String url : urls) {
+            blackhole.consume(urlCanonicalizer.canonicalize(url));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UrlValidationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
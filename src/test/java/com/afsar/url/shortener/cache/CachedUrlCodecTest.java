@@ -0,0 +1,116 @@
+package com.afsar.url.shortener.cache;
+
+import com.afsar.url.shortener.routing.RoutingSpec;
+import com.afsar.url.shortener.routing.RoutingTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CachedUrlCodec Unit Tests")
+class CachedUrlCodecTest {
+
+    private final CachedUrlCodec codec = new CachedUrlCodec(true);
+
+    @Test
+    @DisplayName("Should round-trip URL, expiry and flags")
+    void shouldRoundTrip() {
+        CachedUrl cachedUrl = new CachedUrl("https://www.example.com/a/b?c=d", 1_900_000_000L, CachedUrl.FLAG_DISABLED);
+
+        CachedUrl decoded = codec.decode(codec.encode(cachedUrl));
+
+        assertEquals(cachedUrl, decoded);
+        assertTrue(decoded.hasFlag(CachedUrl.FLAG_DISABLED));
+    }
+
+    @Test
+    @DisplayName("Should round-trip entries without expiry and with non-ASCII characters")
+    void shouldRoundTripWithoutExpiry() {
+        CachedUrl cachedUrl = new CachedUrl("http://例え.jp/パス", CachedUrl.NO_EXPIRY, 0);
+
+        CachedUrl decoded = codec.decode(codec.encode(cachedUrl));
+
+        assertEquals(cachedUrl, decoded);
+        assertFalse(decoded.hasExpiry());
+    }
+
+    @Test
+    @DisplayName("Should pick the longest dictionary prefix")
+    void shouldUseLongestPrefix() {
+        String longUrl = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+
+        byte[] encoded = codec.encode(new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0));
+
+        // header (3) + one-byte varint + the 11 character video id
+        assertEquals(4 + "dQw4w9WgXcQ".length(), encoded.length);
+        assertEquals(longUrl, codec.decode(encoded).longUrl());
+    }
+
+    @Test
+    @DisplayName("Should store the full URL when prefix compression is disabled")
+    void shouldStoreFullUrlWithoutCompression() {
+        CachedUrlCodec plainCodec = new CachedUrlCodec(false);
+        String longUrl = "https://github.com/afsarkhan05/url-shortener";
+
+        byte[] encoded = plainCodec.encode(new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0));
+
+        assertEquals(4 + longUrl.length(), encoded.length);
+        assertEquals(longUrl, codec.decode(encoded).longUrl()); // Any reader decodes either form
+    }
+
+    @Test
+    @DisplayName("Should round-trip routed entries and share their compiled routing")
+    void shouldRoundTripRouting() {
+        RoutingTable routing = RoutingTable.compiled(RoutingTable.toJson(new RoutingSpec(List.of(), List.of(
+                new RoutingSpec.Target("https://example.com/a", 1), new RoutingSpec.Target("https://example.com/b", 1)))));
+        CachedUrl cachedUrl = new CachedUrl("https://www.example.com/", 1_900_000_000L, 0, routing);
+
+        byte[] encoded = codec.encode(cachedUrl);
+        CachedUrl decoded = codec.decode(encoded);
+
+        assertEquals(CachedUrlCodec.VERSION_ROUTED, encoded[0]);
+        assertEquals(cachedUrl, decoded);
+        assertSame(routing, decoded.routing()); // Not recompiled per read
+    }
+
+    @Test
+    @DisplayName("Should stamp the link version at a fixed offset and keep unversioned entries compact")
+    void shouldRoundTripLinkVersion() {
+        CachedUrl cachedUrl = new CachedUrl("https://www.example.com/v", 1_900_000_000L, CachedUrl.FLAG_DISABLED, null, 300);
+
+        byte[] encoded = codec.encode(cachedUrl);
+
+        assertEquals(CachedUrlCodec.VERSION_STAMPED, encoded[0]);
+        assertEquals((byte) (300 & 0x7F | 0x80), encoded[3]); // Where the cache's Lua scripts read it
+        assertEquals(300 >>> 7, encoded[4]);
+        assertEquals(cachedUrl, codec.decode(encoded));
+        assertEquals(CachedUrlCodec.VERSION, codec.encode(new CachedUrl("https://www.example.com/v", 0, 0))[0]);
+    }
+
+    @Test
+    @DisplayName("Should round-trip tombstones and stamped routed entries")
+    void shouldRoundTripTombstonesAndStampedRouting() {
+        RoutingTable routing = RoutingTable.compiled(RoutingTable.toJson(new RoutingSpec(List.of(), List.of(
+                new RoutingSpec.Target("https://example.com/a", 1)))));
+        CachedUrl routed = new CachedUrl("https://www.example.com/", CachedUrl.NO_EXPIRY, 0, routing, 7);
+        CachedUrl tombstone = CachedUrl.tombstone(8);
+
+        assertEquals(routed, codec.decode(codec.encode(routed)));
+        CachedUrl decoded = codec.decode(codec.encode(tombstone));
+        assertEquals(tombstone, decoded);
+        assertTrue(decoded.hasFlag(CachedUrl.FLAG_DELETED));
+    }
+
+    @Test
+    @DisplayName("Should treat unknown versions and legacy plain strings as a miss")
+    void shouldRejectUnknownFormats() {
+        assertNull(codec.decode("https://legacy.example.com".getBytes(StandardCharsets.UTF_8)));
+        assertNull(codec.decode(new byte[]{4, 0, 0, 0, 'a'}));
+        assertNull(codec.decode(new byte[]{CachedUrlCodec.VERSION_ROUTED, 0, 0, 0, 100, 'a'})); // Truncated routing
+        assertNull(codec.decode(new byte[]{CachedUrlCodec.VERSION, 0}));
+        assertNull(codec.decode(null));
+    }
+}
@@ -0,0 +1,237 @@
+package com.afsar.url.shortener.config;
+
+import com.afsar.url.shortener.UrlShortenerApplication;
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
+import com.afsar.url.shortener.dto.ShortenRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.internal.HostAndPort;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DnsResolvers;
+import io.lettuce.core.resource.MappingSocketAddressResolver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the application against a six-node Redis Cluster (three primaries, three replicas) in one container.
+ * Cluster nodes announce container-internal ports, so the client maps them to the ports Docker published.
+ */
+@SpringBootTest(classes = {UrlShortenerApplication.class, RedisClusterIntegrationTest.ClusterAddressMapping.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+@DisplayName("Redis Cluster Integration Tests")
+class RedisClusterIntegrationTest {
+
+    private static final int FIRST_NODE_PORT = 7000;
+    private static final int NODE_COUNT = 6;
+    private static final Duration REPLICA_ACK_TIMEOUT = Duration.ofMillis(500);
+
+    @Container
+    public static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpassword");
+
+    @Container
+    public static GenericContainer<?> redisCluster = new GenericContainer<>(DockerImageName.parse("grokzen/redis-cluster:7.0.10"))
+            .withEnv("IP", "0.0.0.0")
+            .withExposedPorts(7000, 7001, 7002, 7003, 7004, 7005)
+            .waitingFor(Wait.forLogMessage(".*Cluster state changed: ok.*", 1).withStartupTimeout(Duration.ofMinutes(2)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.data.redis.cluster.nodes",
+                () -> redisCluster.getHost() + ":" + redisCluster.getMappedPort(FIRST_NODE_PORT));
+        registry.add("url-shortener.redis.cache-read-from", () -> "REPLICA_PREFERRED");
+        registry.add("url-shortener.cache.replica-acks", () -> "1"); // Every primary in the container has one replica
+        registry.add("url-shortener.cache.replica-ack-timeout", () -> REPLICA_ACK_TIMEOUT.toMillis() + "ms");
+    }
+
+    @TestConfiguration
+    static class ClusterAddressMapping {
+
+        @Bean(destroyMethod = "shutdown")
+        ClientResources clientResources() {
+            MappingSocketAddressResolver resolver = MappingSocketAddressResolver.create(DnsResolvers.UNRESOLVED,
+                    hostAndPort -> {
+                        int port = hostAndPort.getPort();
+                        if (port < FIRST_NODE_PORT || port >= FIRST_NODE_PORT + NODE_COUNT) {
+                            return hostAndPort;
+                        }
+                        return HostAndPort.of(redisCluster.getHost(), redisCluster.getMappedPort(port));
+                    });
+            return ClientResources.builder().socketAddressResolver(resolver).build();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UrlMappingCache urlMappingCache;
+
+    @Autowired
+    @Qualifier("cacheReadConnectionFactory")
+    private LettuceConnectionFactory cacheReadConnectionFactory;
+
+    @Autowired
+    private LettuceConnectionFactory redisConnectionFactory;
+
+    @Test
+    @DisplayName("Should connect both connection factories in cluster mode")
+    void shouldConnectInClusterMode() {
+        assertTrue(redisConnectionFactory.isClusterAware());
+        assertTrue(cacheReadConnectionFactory.isClusterAware());
+        assertEquals(NODE_COUNT, cacheReadConnectionFactory.getClusterConnection().clusterGetNodes().size());
+    }
+
+    @Test
+    @DisplayName("Should route cache writes and reads for keys across all slots, retrying replica misses on the primary")
+    void shouldRouteCacheAcrossSlots() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            urlMappingCache.put("slot" + i, new CachedUrl("https://www.example.com/" + i, CachedUrl.NO_EXPIRY, 0));
+        }
+        for (int i = 0; i < 200; i++) {
+            assertEquals("https://www.example.com/" + i, urlMappingCache.get("slot" + i).longUrl()); // No polling needed
+        }
+    }
+
+    @Test
+    @DisplayName("Should shorten, replay an idempotent retry and redirect through the cluster")
+    void shouldShortenAndRedirectThroughCluster() throws Exception {
+        ShortenRequest request = new ShortenRequest();
+        request.setLongUrl("https://www.example.com/cluster");
+        request.setCustomShortCode("clstr1");
+
+        String shortUrl = mockMvc.perform(post("/shorten")
+                        .header("Idempotency-Key", "cluster-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/shorten")
+                        .header("Idempotency-Key", "cluster-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(shortUrl));
+
+        // Straight after the write: a replica that has not caught up yet must not turn this into a miss
+        mockMvc.perform(get("/clstr1"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://www.example.com/cluster"));
+    }
+
+    @Test
+    @DisplayName("Should never let a lower link version overwrite a higher one")
+    void shouldRejectStaleCacheWrites() throws Exception {
+        assertTrue(urlMappingCache.put("race01", new CachedUrl("https://www.example.com/new", CachedUrl.NO_EXPIRY, 0, null, 10)));
+        assertFalse(urlMappingCache.put("race01", new CachedUrl("https://www.example.com/old", CachedUrl.NO_EXPIRY, 0, null, 9)));
+        assertTrue(urlMappingCache.putTombstone("race01", 11));
+        assertFalse(urlMappingCache.put("race01", new CachedUrl("https://www.example.com/new", CachedUrl.NO_EXPIRY, 0, null, 10)));
+
+        assertEquals(11, awaitVersion("race01", 11).version());
+        // A link re-created under the code may claim it over the tombstone
+        assertTrue(urlMappingCache.putIfAbsent("race01", new CachedUrl("https://www.example.com/again", CachedUrl.NO_EXPIRY, 0)));
+        assertFalse(urlMappingCache.putIfAbsent("race01", new CachedUrl("https://www.example.com/other", CachedUrl.NO_EXPIRY, 0)));
+    }
+
+    @Test
+    @DisplayName("Should make PATCH and DELETE visible on replica reads within the acknowledgement bound")
+    void shouldPropagateMutationsToReplicasWithinBound() throws Exception {
+        ShortenRequest request = new ShortenRequest();
+        request.setLongUrl("https://www.example.com/before");
+        request.setCustomShortCode("mutat1");
+        mockMvc.perform(post("/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        long started = System.nanoTime();
+        mockMvc.perform(patch("/mappings/mutat1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"longUrl\":\"https://www.example.com/after\"}"))
+                .andExpect(status().isOk());
+        Duration visibleAfter = Duration.ofNanos(System.nanoTime() - started);
+        // WAIT returned, so the very first replica read after the PATCH must already see it
+        assertEquals("https://www.example.com/after", urlMappingCache.get("mutat1").longUrl());
+        mockMvc.perform(get("/mutat1"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://www.example.com/after"));
+
+        started = System.nanoTime();
+        mockMvc.perform(delete("/mappings/mutat1")).andExpect(status().isNoContent());
+        Duration goneAfter = Duration.ofNanos(System.nanoTime() - started);
+        assertTrue(urlMappingCache.get("mutat1").hasFlag(CachedUrl.FLAG_DELETED));
+        mockMvc.perform(get("/mutat1")).andExpect(status().isNotFound());
+
+        assertTrue(visibleAfter.compareTo(REPLICA_ACK_TIMEOUT) < 0, "PATCH took " + visibleAfter);
+        assertTrue(goneAfter.compareTo(REPLICA_ACK_TIMEOUT) < 0, "DELETE took " + goneAfter);
+    }
+
+    @Test
+    @DisplayName("Should have a replica acknowledge a cache write within the bound")
+    void shouldAcknowledgeCacheWritesWithinBound() throws Exception {
+        long started = System.nanoTime();
+        assertEquals(1, urlMappingCache.putAndAwait("acked1",
+                new CachedUrl("https://www.example.com/acked", CachedUrl.NO_EXPIRY, 0, null, 1), 1, REPLICA_ACK_TIMEOUT));
+        Duration acknowledgedAfter = Duration.ofNanos(System.nanoTime() - started);
+        assertEquals("https://www.example.com/acked", urlMappingCache.get("acked1").longUrl()); // No polling needed
+
+        started = System.nanoTime();
+        assertEquals(1, urlMappingCache.putTombstoneAndAwait("acked1", 2, 1, REPLICA_ACK_TIMEOUT));
+        Duration tombstonedAfter = Duration.ofNanos(System.nanoTime() - started);
+        assertTrue(urlMappingCache.get("acked1").hasFlag(CachedUrl.FLAG_DELETED));
+
+        assertTrue(acknowledgedAfter.compareTo(REPLICA_ACK_TIMEOUT) < 0, "Write acknowledged after " + acknowledgedAfter);
+        assertTrue(tombstonedAfter.compareTo(REPLICA_ACK_TIMEOUT) < 0, "Tombstone acknowledged after " + tombstonedAfter);
+    }
+
+    // Replica reads see a write once it has replicated, which is asynchronous; until then a replica may still hold
+    // an older version, which the primary fallback on a miss does not correct
+    private CachedUrl awaitVersion(String shortCode, long version) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        CachedUrl cached;
+        while (((cached = urlMappingCache.get(shortCode)) == null || cached.version() != version)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNotNull(cached, "Not cached: " + shortCode);
+        return cached;
+    }
+}
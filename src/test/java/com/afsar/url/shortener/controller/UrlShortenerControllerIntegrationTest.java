@@ -1,6 +1,8 @@
 package com.afsar.url.shortener.controller;
 
 import com.afsar.url.shortener.UrlShortenerApplication;
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
 import com.afsar.url.shortener.dto.ShortenRequest;
 import com.afsar.url.shortener.model.UrlMapping;
 import com.afsar.url.shortener.repository.UrlMappingRepository;
@@ -31,7 +33,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -60,8 +64,8 @@ class UrlShortenerControllerIntegrationTest {
         registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
         registry.add("spring.datasource.username", postgresContainer::getUsername);
         registry.add("spring.datasource.password", postgresContainer::getPassword);
-        registry.add("spring.redis.host", redisContainer::getHost);
-        registry.add("spring.redis.port", () -> redisContainer.getMappedPort(6379).toString());
+        registry.add("spring.data.redis.host", redisContainer::getHost);
+        registry.add("spring.data.redis.port", () -> redisContainer.getMappedPort(6379).toString());
     }
 
     @Autowired
@@ -76,6 +80,9 @@ class UrlShortenerControllerIntegrationTest {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private UrlMappingCache urlMappingCache;
+
     @BeforeEach
     void setUp() {
         urlMappingRepository.deleteAll(); // Clear DB before each test
@@ -108,7 +115,98 @@ class UrlShortenerControllerIntegrationTest {
         assertEquals(longUrl, urlMappingRepository.findById(shortCode).get().getLongUrl());
 
         // Verify it's in Redis cache
-        assertEquals(longUrl, redisTemplate.opsForValue().get(shortCode));
+        assertEquals(longUrl, urlMappingCache.get(shortCode).longUrl());
+    }
+
+    @Test
+    @DisplayName("Should replay the first response for a retried Idempotency-Key")
+    void shouldReplayResponseForRetriedIdempotencyKey() throws Exception {
+        ShortenRequest request = new ShortenRequest();
+        request.setLongUrl("https://www.example.com/retried");
+        request.setCustomShortCode("retry1");
+
+        String first = mockMvc.perform(post("/shorten")
+                        .header("Idempotency-Key", "client-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        // Without the key this custom code would now be a 409
+        mockMvc.perform(post("/shorten")
+                        .header("Idempotency-Key", "client-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(first));
+
+        assertEquals(1, urlMappingRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should retarget, disable and delete a link with version preconditions")
+    void shouldMutateLinkWithVersionPreconditions() throws Exception {
+        ShortenRequest request = new ShortenRequest();
+        request.setLongUrl("https://www.example.com/original");
+        request.setCustomShortCode("edit01");
+        mockMvc.perform(post("/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/edit01")).andExpect(redirectedUrl("https://www.example.com/original")); // Now cached
+        String created = mockMvc.perform(get("/mappings/edit01"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        String retargeted = mockMvc.perform(patch("/mappings/edit01")
+                        .header("If-Match", created)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"longUrl\":\"https://www.example.com/moved\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longUrl").value("https://www.example.com/moved"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(created, retargeted);
+        mockMvc.perform(get("/edit01")).andExpect(redirectedUrl("https://www.example.com/moved"));
+
+        // A writer still holding the first version loses
+        mockMvc.perform(patch("/mappings/edit01")
+                        .header("If-Match", created)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"disabled\":true}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", retargeted));
+
+        mockMvc.perform(patch("/mappings/edit01")
+                        .header("If-Match", retargeted)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"disabled\":true}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/edit01")).andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/mappings/edit01")).andExpect(status().isNoContent());
+        assertFalse(urlMappingRepository.existsById("edit01"));
+        mockMvc.perform(get("/edit01")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/mappings/edit01")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should not let a reload of the old row overwrite a newer cached version")
+    void shouldKeepNewerVersionAgainstStaleReload() throws Exception {
+        ShortenRequest request = new ShortenRequest();
+        request.setLongUrl("https://www.example.com/v1");
+        request.setCustomShortCode("race02");
+        mockMvc.perform(post("/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        CachedUrl stale = urlMappingCache.get("race02"); // What a slow redirect read before the PATCH
+
+        mockMvc.perform(patch("/mappings/race02")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"longUrl\":\"https://www.example.com/v2\"}"))
+                .andExpect(status().isOk());
+
+        assertFalse(urlMappingCache.put("race02", stale));
+        mockMvc.perform(get("/race02")).andExpect(redirectedUrl("https://www.example.com/v2"));
     }
-    // ...
 }
@@ -1,6 +1,7 @@
 package com.afsar.url.shortener.controller;
 
 import com.afsar.url.shortener.UrlShortenerApplication;
+import com.afsar.url.shortener.cache.UrlMappingCache;
 import com.afsar.url.shortener.dto.ShortenRequest;
 import com.afsar.url.shortener.model.UrlMapping;
 import com.afsar.url.shortener.repository.UrlMappingRepository;
@@ -43,6 +44,9 @@ class UrlShortenerControllerIntegrationTest {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private UrlMappingCache urlMappingCache;
+
     @BeforeEach
     void setUp() {
         urlMappingRepository.deleteAll(); // Clear DB before each test
@@ -71,7 +75,7 @@ class UrlShortenerControllerIntegrationTest {
         assertEquals(longUrl, urlMappingRepository.findById(shortCode).get().getLongUrl());
 
         // Verify it's in Redis cache
-        assertEquals(longUrl, redisTemplate.opsForValue().get(shortCode));
+        assertEquals(longUrl, urlMappingCache.get(shortCode).longUrl());
     }
 
     @Test
@@ -63,7 +63,7 @@ public class UrlShorteningSteps {
 
     @And("no short URL exists for {string}")
     public void noShortUrlExistsFor(String longUrl) {
-        urlMappingRepository.findByLongUrl(longUrl).ifPresent(urlMappingRepository::delete);
+        urlMappingRepository.findFirstByLongUrl(longUrl).ifPresent(urlMappingRepository::delete);
     }
 
     @When("I request to shorten {string}")
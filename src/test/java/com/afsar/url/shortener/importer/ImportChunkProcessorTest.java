@@ -0,0 +1,124 @@
+package com.afsar.url.shortener.importer;
+
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ImportChunkProcessor Unit Tests")
+class ImportChunkProcessorTest {
+
+    private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should turn valid CSV lines into COPY rows and skip the header")
+    void shouldConvertCsvToCopyRows() {
+        String csv = "short_code,long_url,created_at,expires_at\r\n"
+                + "abc,HTTPS://Example.COM:443/a%7e,2024-01-02T03:04:05,\r\n"
+                + "\"q\"\"x\",https://example.com/q,,\n";
+
+        ImportChunkProcessor.ProcessedChunk result = process(ImportFormat.CSV, csv);
+
+        assertEquals(1, result.rows());
+        assertEquals(3, result.endLine());
+        String copy = new String(result.copyData(), StandardCharsets.UTF_8);
+        assertEquals("2\tabc\thttps://example.com/a~\t2024-01-02T03:04:05\t\\N\n", copy);
+        assertEquals(1, result.issues().size());
+        ImportIssue issue = result.issues().get(0);
+        assertEquals(3, issue.lineNo());
+        assertEquals(ImportIssue.INVALID, issue.reason());
+        assertEquals("q\"x", issue.shortCode());
+    }
+
+    @Test
+    @DisplayName("Should read NDJSON and convert offsets and epoch seconds to local time")
+    void shouldConvertNdjson() {
+        String ndjson = "{\"short_code\":\"n1\",\"long_url\":\"https://example.com/1\",\"created_at\":\"2024-01-02T03:04:05Z\"}\n"
+                + "{\"short_code\":\"n2\",\"long_url\":\"https://example.com/2\",\"expires_at\":1700000000}\n"
+                + "not json\n";
+
+        ImportChunkProcessor.ProcessedChunk result = process(ImportFormat.NDJSON, ndjson);
+
+        assertEquals(2, result.rows());
+        String[] rows = new String(result.copyData(), StandardCharsets.UTF_8).split("\n");
+        LocalDateTime created = LocalDateTime.ofInstant(Instant.parse("2024-01-02T03:04:05Z"), ZoneId.systemDefault());
+        assertEquals("1\tn1\thttps://example.com/1\t" + created + "\t\\N", rows[0]);
+        LocalDateTime expires = LocalDateTime.ofInstant(Instant.ofEpochSecond(1_700_000_000L), ZoneId.systemDefault());
+        assertTrue(rows[1].endsWith("\t" + expires), rows[1]);
+        assertEquals(3, result.issues().get(0).lineNo());
+        assertTrue(result.issues().get(0).detail().startsWith("Malformed JSON"));
+    }
+
+    @Test
+    @DisplayName("Should reject bad short codes, URLs and timestamps with a reason")
+    void shouldRejectInvalidLines() {
+        String csv = "toolongcode1,https://example.com\n"
+                + "a/b,https://example.com\n"
+                + "ok,ftp://example.com\n"
+                + "ok,https://example.com,yesterday\n"
+                + "onlyonefield\n";
+
+        ImportChunkProcessor.ProcessedChunk result = process(ImportFormat.CSV, csv);
+
+        assertEquals(0, result.rows());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), result.issues().stream().map(ImportIssue::lineNo).toList());
+        assertTrue(result.issues().get(3).detail().contains("created_at"));
+    }
+
+    @Test
+    @DisplayName("Should split input into whole-line chunks whose offsets allow resuming mid-file")
+    void shouldChunkAndResumeAtOffsets() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            input.append("c").append(i).append(",https://example.com/").append(i).append('\n');
+        }
+        input.append("c11,https://example.com/11"); // No trailing newline
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<ImportChunkReader.Chunk> chunks = readAll(bytes, 0, 1, 4);
+        assertEquals(List.of(4, 4, 3), chunks.stream().map(ImportChunkReader.Chunk::lineCount).toList());
+        assertEquals(bytes.length, chunks.get(2).endOffset());
+
+        // Resume after the first chunk as a checkpoint would
+        long offset = chunks.get(0).endOffset();
+        byte[] rest = Arrays.copyOfRange(bytes, (int) offset, bytes.length);
+        List<ImportChunkReader.Chunk> resumed = readAll(rest, offset, 5, 100);
+        assertEquals(1, resumed.size());
+        ImportChunkProcessor.ProcessedChunk result = new ImportChunkProcessor(ImportFormat.CSV, urlCanonicalizer, objectMapper)
+                .process(resumed.get(0));
+        assertEquals(7, result.rows());
+        assertEquals(11, result.endLine());
+        assertTrue(new String(result.copyData(), StandardCharsets.UTF_8).startsWith("5\tc5\t"));
+    }
+
+    private ImportChunkProcessor.ProcessedChunk process(ImportFormat format, String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        int lines = (int) text.chars().filter(c -> c == '\n').count();
+        return new ImportChunkProcessor(format, urlCanonicalizer, objectMapper)
+                .process(new ImportChunkReader.Chunk(1, lines, data.length, data));
+    }
+
+    private static List<ImportChunkReader.Chunk> readAll(byte[] bytes, long startOffset, long startLine, int maxLines)
+            throws IOException {
+        ImportChunkReader reader = new ImportChunkReader(new ByteArrayInputStream(bytes), startOffset, startLine, maxLines);
+        List<ImportChunkReader.Chunk> chunks = new ArrayList<>();
+        ImportChunkReader.Chunk chunk;
+        while ((chunk = reader.next()) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
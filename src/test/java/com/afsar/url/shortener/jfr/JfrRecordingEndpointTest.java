@@ -0,0 +1,87 @@
+package com.afsar.url.shortener.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JfrRecordingEndpoint Unit Tests")
+class JfrRecordingEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrRecordingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new JfrRecordingEndpoint();
+        ReflectionTestUtils.setField(endpoint, "directory", directory);
+        ReflectionTestUtils.setField(endpoint, "defaultDuration", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(endpoint, "maxDuration", Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    @DisplayName("Should record service events and serve the file once stopped")
+    void shouldRecordAndDownload() throws Exception {
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start("30s");
+        assertEquals(WebEndpointResponse.STATUS_OK, started.getStatus());
+        String fileName = (String) started.getBody().get("file");
+        assertEquals(409, endpoint.start("30s").getStatus()); // One recording at a time
+        assertEquals(409, endpoint.download(fileName).getStatus()); // Not written until stopped
+
+        CacheLookupEvent lookup = new CacheLookupEvent();
+        lookup.begin();
+        lookup.shortCode = "abc123";
+        lookup.hit = true;
+        lookup.commit();
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.stop().getStatus());
+
+        WebEndpointResponse<Resource> download = endpoint.download(fileName);
+        assertEquals(WebEndpointResponse.STATUS_OK, download.getStatus());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(download.getBody().getFile().toPath());
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("urlshortener.CacheLookup")
+                && "abc123".equals(e.getString("shortCode")) && e.getBoolean("hit")));
+    }
+
+    @Test
+    @DisplayName("Should cap the duration and reject unusable ones")
+    void shouldTimeBoxRecordings() {
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.start("soon").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.start("0s").getStatus());
+
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start("2h");
+
+        assertEquals(Duration.ofMinutes(10), started.getBody().get("duration"));
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download("../../etc/passwd").getStatus());
+    }
+
+    @Test
+    @DisplayName("Should bundle settings for every service event")
+    void shouldBundleServiceSettings() throws Exception {
+        Map<String, String> settings = JfrRecordingEndpoint.serviceSettings().getSettings();
+
+        for (String event : List.of("CacheLookup", "DatabaseFallback", "ShortCodeCollision", "AccessFlush", "SlowRedirect")) {
+            assertEquals("true", settings.get("urlshortener." + event + "#enabled"), event);
+        }
+        assertEquals("25 ms", settings.get("urlshortener.SlowRedirect#threshold"));
+    }
+}
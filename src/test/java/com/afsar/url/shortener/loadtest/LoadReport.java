@@ -0,0 +1,96 @@
+package com.afsar.url.shortener.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms and error counts for one load run, written as JSON (for comparing builds)
+ * plus HdrHistogram percentile distributions (for plotting).
+ */
+public class LoadReport {
+
+    public enum Operation { SHORTEN, REDIRECT, UNKNOWN_CODE, BULK_SHORTEN }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final Map<Operation, ConcurrentHistogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void record(Operation operation, long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histograms.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    public void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    public Path write(Path directory, LoadTestSettings settings, long elapsedNanos) throws IOException {
+        Files.createDirectories(directory);
+        String baseName = "load-report-" + settings.label() + "-" + Instant.now().getEpochSecond();
+        double elapsedSeconds = elapsedNanos / 1e9;
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("errors", errors.get(operation).sum());
+            stats.put("throughputPerSecond", histogram.getTotalCount() / elapsedSeconds);
+            stats.put("meanMicros", histogram.getMean());
+            stats.put("p50Micros", histogram.getValueAtPercentile(50));
+            stats.put("p90Micros", histogram.getValueAtPercentile(90));
+            stats.put("p99Micros", histogram.getValueAtPercentile(99));
+            stats.put("p999Micros", histogram.getValueAtPercentile(99.9));
+            stats.put("maxMicros", histogram.getMaxValue());
+            endpoints.put(operation.name(), stats);
+
+            try (PrintStream out = new PrintStream(directory.resolve(baseName + "-" + operation.name() + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(out, 1.0);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", settings.label());
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("endpoints", endpoints);
+
+        Path json = directory.resolve(baseName + ".json");
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(json.toFile(), report);
+        return json;
+    }
+}
@@ -0,0 +1,40 @@
+package com.afsar.url.shortener.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load profile, read from {@code -Dloadtest.*} system properties so runs can be tuned from the command line.
+ * Operation weights are relative; set one to 0 to leave that operation out of the mix.
+ */
+public record LoadTestSettings(
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        int seedLinks,
+        double zipfExponent,
+        int shortenWeight,
+        int redirectWeight,
+        int unknownWeight,
+        int bulkWeight,
+        int bulkSize,
+        String label) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Integer.getInteger("loadtest.seed-links", 10_000),
+                Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.1")),
+                Integer.getInteger("loadtest.weight.shorten", 5),
+                Integer.getInteger("loadtest.weight.redirect", 90),
+                Integer.getInteger("loadtest.weight.unknown", 4),
+                Integer.getInteger("loadtest.weight.bulk", 1),
+                Integer.getInteger("loadtest.bulk-size", 20),
+                System.getProperty("loadtest.label", "local"));
+    }
+
+    public int totalWeight() {
+        return shortenWeight + redirectWeight + unknownWeight + bulkWeight;
+    }
+}
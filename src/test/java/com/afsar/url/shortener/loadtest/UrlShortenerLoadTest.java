@@ -0,0 +1,186 @@
+package com.afsar.url.shortener.loadtest;
+
+import com.afsar.url.shortener.UrlShortenerApplication;
+import com.afsar.url.shortener.loadtest.LoadReport.Operation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a configurable mix of shortens, Zipf-distributed redirects, unknown-code probes and bulk shortens
+ * against the real application backed by Testcontainers Postgres and Redis, and writes a machine-readable
+ * report to {@code target/load-reports}. Excluded from the default build; run with
+ * {@code mvn test -Pload-test -Dloadtest.duration-seconds=120 -Dloadtest.label=my-build}.
+ * See {@link LoadTestSettings} for the remaining knobs.
+ */
+@SpringBootTest(classes = UrlShortenerApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("URL shortener load test")
+class UrlShortenerLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlShortenerLoadTest.class);
+
+    @Container
+    public static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"))
+            .withDatabaseName("loaddb")
+            .withUsername("loaduser")
+            .withPassword("loadpassword");
+
+    @Container
+    public static GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.data.redis.host", redisContainer::getHost);
+        registry.add("spring.data.redis.port", () -> redisContainer.getMappedPort(6379).toString());
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final LoadReport report = new LoadReport();
+    private final AtomicLong urlSequence = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String[] seededCodes;
+    private ZipfSampler zipfSampler;
+
+    @BeforeAll
+    void seedLinks() throws Exception {
+        seededCodes = new String[settings.seedLinks()];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < seededCodes.length; i++) {
+                int index = i;
+                futures.add(CompletableFuture.runAsync(() -> seededCodes[index] = shortenForCode(), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+        zipfSampler = new ZipfSampler(seededCodes.length, settings.zipfExponent());
+    }
+
+    @Test
+    @DisplayName("Should sustain the configured traffic mix and write a latency report")
+    void runLoad() throws Exception {
+        runPhase(settings.warmup());
+        report.reset(); // Warmup only primes JIT, pools and caches
+
+        long start = System.nanoTime();
+        runPhase(settings.duration());
+        long elapsed = System.nanoTime() - start;
+
+        Path json = report.write(Path.of("target", "load-reports"), settings, elapsed);
+        log.info("Load report written to {}", json.toAbsolutePath());
+        assertTrue(json.toFile().length() > 0);
+    }
+
+    private void runPhase(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < settings.concurrency(); worker++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        runOneOperation();
+                    }
+                });
+            }
+        }
+    }
+
+    private void runOneOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(settings.totalWeight());
+        long start = System.nanoTime();
+        if ((pick -= settings.shortenWeight()) < 0) {
+            report.record(Operation.SHORTEN, start, send(shortenRequest()) == 201);
+        } else if ((pick -= settings.redirectWeight()) < 0) {
+            String code = seededCodes[zipfSampler.next()];
+            report.record(Operation.REDIRECT, start, send(redirectRequest(code)) == 302);
+        } else if ((pick -= settings.unknownWeight()) < 0) {
+            String code = "zz" + Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+            report.record(Operation.UNKNOWN_CODE, start, send(redirectRequest(code)) == 404);
+        } else {
+            // No bulk endpoint yet: a burst of concurrent shortens on one client, timed as a single call
+            List<CompletableFuture<HttpResponse<Void>>> burst = new ArrayList<>(settings.bulkSize());
+            for (int i = 0; i < settings.bulkSize(); i++) {
+                burst.add(httpClient.sendAsync(shortenRequest(), HttpResponse.BodyHandlers.discarding()));
+            }
+            boolean success = true;
+            for (CompletableFuture<HttpResponse<Void>> future : burst) {
+                try {
+                    success &= future.join().statusCode() == 201;
+                } catch (RuntimeException e) {
+                    success = false;
+                }
+            }
+            report.record(Operation.BULK_SHORTEN, start, success);
+        }
+    }
+
+    private String shortenForCode() {
+        try {
+            String shortUrl = httpClient.send(shortenRequest(), HttpResponse.BodyHandlers.ofString()).body();
+            return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        } catch (Exception e) {
+            throw new IllegalStateException("Seeding failed", e);
+        }
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private HttpRequest shortenRequest() {
+        String longUrl = "https://www.example.com/load/" + urlSequence.incrementAndGet() + "?utm_source=loadtest";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/shorten"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"longUrl\":\"" + longUrl + "\"}"))
+                .build();
+    }
+
+    private HttpRequest redirectRequest(String shortCode) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/" + shortCode)).GET().build();
+    }
+}
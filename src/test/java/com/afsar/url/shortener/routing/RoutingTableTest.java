@@ -0,0 +1,130 @@
+package com.afsar.url.shortener.routing;
+
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RoutingTable Unit Tests")
+class RoutingTableTest {
+
+    private static final String IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148";
+    private static final String IPAD = "Mozilla/5.0 (iPad; CPU OS 17_0 like Mac OS X)";
+    private static final String DESKTOP = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0";
+
+    private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+
+    @Test
+    @DisplayName("Should apply the first matching rule in order")
+    void shouldApplyFirstMatchingRule() {
+        RoutingTable table = compile(new RoutingSpec(List.of(
+                rule(List.of("mobile"), List.of("de"), List.of(), "https://example.com/mobile-de"),
+                rule(List.of("MOBILE"), List.of(), List.of(), "https://example.com/mobile"),
+                rule(List.of(), List.of("pt-BR"), List.of(), "https://example.com/pt-br"),
+                rule(List.of(), List.of(), List.of("de", "AT"), "https://example.com/dach")), null));
+
+        assertEquals("https://example.com/mobile-de", table.choose(IPHONE, "de-DE,de;q=0.9,en;q=0.8", null));
+        assertEquals("https://example.com/mobile", table.choose(IPHONE, "en-US", "DE"));
+        assertEquals("https://example.com/pt-br", table.choose(DESKTOP, "pt-BR,pt;q=0.9", null));
+        assertEquals("https://example.com/dach", table.choose(IPAD, "pt-PT", "at"));
+        assertNull(table.choose(DESKTOP, "fr", "FR")); // Falls back to the link's long URL
+        assertNull(table.choose(null, null, null));
+    }
+
+    @Test
+    @DisplayName("Should split traffic by weight through the alias table")
+    void shouldSplitTrafficByWeight() {
+        RoutingTable table = compile(new RoutingSpec(List.of(), List.of(
+                new RoutingSpec.Target("https://example.com/a", 70),
+                new RoutingSpec.Target("https://example.com/b", 20),
+                new RoutingSpec.Target("https://example.com/c", 10))));
+
+        Map<String, Integer> counts = new HashMap<>();
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts.merge(table.choose(DESKTOP, null, null), 1, Integer::sum);
+        }
+
+        assertEquals(0.70, counts.get("https://example.com/a") / (double) samples, 0.01);
+        assertEquals(0.20, counts.get("https://example.com/b") / (double) samples, 0.01);
+        assertEquals(0.10, counts.get("https://example.com/c") / (double) samples, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should evaluate without allocating")
+    void shouldEvaluateWithoutAllocating() {
+        RoutingTable table = compile(new RoutingSpec(List.of(
+                rule(List.of("TABLET"), List.of("de"), List.of("DE"), "https://example.com/1"),
+                rule(List.of("BOT"), List.of(), List.of(), "https://example.com/2")), List.of(
+                new RoutingSpec.Target("https://example.com/a", 1),
+                new RoutingSpec.Target("https://example.com/b", 3))));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 10_000; i++) {
+            table.choose(IPHONE, "de-DE,de;q=0.9", "DE"); // Warm up
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            table.choose(IPHONE, "de-DE,de;q=0.9", "DE");
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes for 100000 evaluations");
+    }
+
+    @Test
+    @DisplayName("Should share one compiled table per stored routing")
+    void shouldShareCompiledTables() {
+        String json = RoutingTable.toJson(new RoutingSpec(List.of(), List.of(new RoutingSpec.Target("https://example.com/", 1)))
+                .normalize(urlCanonicalizer));
+
+        assertSame(RoutingTable.compiled(json), RoutingTable.compiled(new String(json)));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used compiled table once full")
+    void shouldEvictLeastRecentlyUsed() {
+        RoutingTable kept = compile(single("https://example.com/kept"));
+        RoutingTable firstOther = compile(single("https://example.com/other/0"));
+        for (int i = 1; i < RoutingTable.MAX_COMPILED - 1; i++) {
+            compile(single("https://example.com/other/" + i));
+        }
+        assertSame(kept, compile(single("https://example.com/kept"))); // Now the most recently used
+
+        compile(single("https://example.com/one-more"));
+
+        assertSame(kept, compile(single("https://example.com/kept")));
+        assertNotSame(firstOther, compile(single("https://example.com/other/0"))); // Evicted and compiled again
+    }
+
+    @Test
+    @DisplayName("Should reject malformed routing specs")
+    void shouldRejectMalformedSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> new RoutingSpec(null, null).normalize(urlCanonicalizer));
+        assertThrows(IllegalArgumentException.class, () -> new RoutingSpec(List.of(
+                rule(List.of("FRIDGE"), List.of(), List.of(), "https://example.com/")), null).normalize(urlCanonicalizer));
+        assertThrows(IllegalArgumentException.class, () -> new RoutingSpec(List.of(), List.of(
+                new RoutingSpec.Target("https://example.com/", 0))).normalize(urlCanonicalizer));
+        assertThrows(IllegalArgumentException.class, () -> new RoutingSpec(List.of(), List.of(
+                new RoutingSpec.Target("javascript:alert(1)", 1))).normalize(urlCanonicalizer));
+    }
+
+    private RoutingTable compile(RoutingSpec spec) {
+        return RoutingTable.compiled(RoutingTable.toJson(spec.normalize(urlCanonicalizer)));
+    }
+
+    private static RoutingSpec single(String url) {
+        return new RoutingSpec(List.of(rule(List.of(), List.of(), List.of(), url)), null);
+    }
+
+    private static RoutingSpec.Rule rule(List<String> devices, List<String> languages, List<String> countries, String url) {
+        return new RoutingSpec.Rule(devices, languages, countries, List.of(new RoutingSpec.Target(url, null)));
+    }
+}
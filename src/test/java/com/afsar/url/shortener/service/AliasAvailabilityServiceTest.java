@@ -0,0 +1,60 @@
+package com.afsar.url.shortener.service;
+
+import com.afsar.url.shortener.repository.UrlLookupRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AliasAvailabilityService Unit Tests")
+class AliasAvailabilityServiceTest {
+
+    @Mock
+    private UrlLookupRepository urlLookupRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private AliasAvailabilityService aliasAvailabilityService;
+
+    @Test
+    @DisplayName("Should skip locally taken codes and check the remaining reservations in one round trip")
+    void shouldSuggestWithOneReservationLookup() {
+        aliasAvailabilityService.markTaken("promo1");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("alias:reservation:promo2", "alias:reservation:promo3")))
+                .thenReturn(Arrays.asList(null, null));
+
+        assertEquals(List.of("promo2", "promo3"), aliasAvailabilityService.suggest("promo", 2));
+
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    @DisplayName("Should replace leased candidates with the next free ones")
+    void shouldSkipLeasedCandidates() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("alias:reservation:promo1", "alias:reservation:promo2")))
+                .thenReturn(Arrays.asList("someone-else", null));
+        when(valueOperations.multiGet(List.of("alias:reservation:promo3"))).thenReturn(Arrays.asList((String) null));
+
+        assertEquals(List.of("promo2", "promo3"), aliasAvailabilityService.suggest("promo", 2));
+    }
+}
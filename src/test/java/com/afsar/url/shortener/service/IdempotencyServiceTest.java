@@ -0,0 +1,170 @@
+package com.afsar.url.shortener.service;
+
+import com.afsar.url.shortener.service.IdempotencyService.StoredResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyService Unit Tests")
+class IdempotencyServiceTest {
+
+    private static final String REDIS_KEY = "idempotency:key-1";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyService, "inFlightTimeout", Duration.ofSeconds(5));
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    @DisplayName("Should run the first request and store its response")
+    void shouldRunFirstRequestAndStoreResponse() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(true);
+
+        StoredResponse response = idempotencyService.execute("key-1", "fp",
+                () -> new StoredResponse(201, "fp", "http://localhost:8080/abc"));
+
+        assertEquals(201, response.status());
+        verify(valueOperations).set(REDIS_KEY, "201\nfp\nhttp://localhost:8080/abc", Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("Should replay a stored response without running the action")
+    void shouldReplayStoredResponse() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn("201\nfp\nhttp://localhost:8080/abc");
+
+        StoredResponse response = idempotencyService.execute("key-1", "fp", () -> fail("Action must not run"));
+
+        assertEquals(201, response.status());
+        assertEquals("http://localhost:8080/abc", response.body());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectKeyReusedForDifferentRequest() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn("201\nfp\nhttp://localhost:8080/abc");
+
+        StoredResponse response = idempotencyService.execute("key-1", "other", () -> fail("Action must not run"));
+
+        assertEquals(422, response.status());
+    }
+
+    @Test
+    @DisplayName("Should not store server errors so a retry runs again")
+    void shouldNotStoreServerErrors() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(true);
+
+        StoredResponse response = idempotencyService.execute("key-1", "fp",
+                () -> new StoredResponse(500, "fp", "An unexpected error occurred: boom"));
+
+        assertEquals(500, response.status());
+        verify(redisTemplate).delete(REDIS_KEY);
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should let concurrent duplicates wait on the in-flight request")
+    void shouldLetConcurrentDuplicatesWaitOnInFlightRequest() throws Exception {
+        // Whether the duplicate joins the local future or arrives just after it, it must not run the action
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(true, false);
+        lenient().when(valueOperations.get(REDIS_KEY)).thenReturn("201\nfp\nhttp://localhost:8080/abc");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<StoredResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key-1", "fp", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    awaitQuietly(release);
+                    return new StoredResponse(201, "fp", "http://localhost:8080/abc");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<StoredResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key-1", "fp", () -> {
+                    runs.incrementAndGet();
+                    return new StoredResponse(201, "fp", "http://localhost:8080/other");
+                }));
+        release.countDown();
+
+        assertEquals("http://localhost:8080/abc", first.get(5, TimeUnit.SECONDS).body());
+        assertEquals("http://localhost:8080/abc", duplicate.get(5, TimeUnit.SECONDS).body());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should keep extending the in-flight marker while a slow first request runs")
+    void shouldExtendMarkerWhileActionRuns() {
+        ReflectionTestUtils.setField(idempotencyService, "inFlightTimeout", Duration.ofMillis(150));
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(true);
+
+        idempotencyService.execute("key-1", "fp", () -> {
+            awaitQuietly(new CountDownLatch(1), 400); // Well past the marker's own TTL
+            return new StoredResponse(201, "fp", "http://localhost:8080/abc");
+        });
+
+        verify(redisTemplate, atLeast(2)).execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), eq("P\nfp"), eq("150"));
+    }
+
+    @Test
+    @DisplayName("Should fingerprint requests with SHA-256 over length-prefixed fields")
+    void shouldFingerprintRequestFields() {
+        String fingerprint = IdempotencyService.fingerprint("https://example.com/", null, 5);
+
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, IdempotencyService.fingerprint("https://example.com/", null, 5));
+        assertNotEquals(fingerprint, IdempotencyService.fingerprint("https://example.com/", "null", 5));
+        assertNotEquals(IdempotencyService.fingerprint("ab", "c"), IdempotencyService.fingerprint("a", "bc"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch, long millis) {
+        try {
+            latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
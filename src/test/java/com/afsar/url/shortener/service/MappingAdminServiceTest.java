@@ -0,0 +1,137 @@
+package com.afsar.url.shortener.service;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
+import com.afsar.url.shortener.dto.HostDisableReport;
+import com.afsar.url.shortener.dto.MappingPage;
+import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.repository.UrlAdminRepository;
+import com.afsar.url.shortener.repository.UrlAdminRepository.MappingFilter;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MappingAdminService Unit Tests")
+class MappingAdminServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_456_000);
+
+    @Mock
+    private UrlAdminRepository urlAdminRepository;
+
+    @Mock
+    private UrlArchiveRepository urlArchiveRepository;
+
+    @Mock
+    private UrlMappingCache urlMappingCache;
+
+    private MappingAdminService mappingAdminService;
+
+    @BeforeEach
+    void setUp() {
+        mappingAdminService = new MappingAdminService(urlAdminRepository, urlArchiveRepository, urlMappingCache, new ObjectMapper());
+        ReflectionTestUtils.setField(mappingAdminService, "disableBatchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Should hand out a cursor that resumes after the last row of a full page")
+    void shouldResumeFromCursor() {
+        MappingFilter filter = MappingAdminService.filter("Bad.Example", null, null);
+        when(urlAdminRepository.findPage(filter, null, null, 2))
+                .thenReturn(List.of(mapping("a1", CREATED.minusDays(1), 1), mapping("b|2", CREATED, 2)));
+
+        MappingPage first = mappingAdminService.page(filter, null, 2);
+
+        assertEquals("bad.example", filter.host());
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        when(urlAdminRepository.findPage(filter, CREATED, "b|2", 2)).thenReturn(List.of(mapping("c3", CREATED, 3)));
+        MappingPage second = mappingAdminService.page(filter, first.getNextCursor(), 2);
+
+        assertEquals("c3", second.getItems().get(0).getShortCode());
+        assertNull(second.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> mappingAdminService.page(filter, "not-a-cursor", 2));
+        assertThrows(IllegalArgumentException.class, () -> MappingAdminService.filter(null, CREATED, CREATED));
+    }
+
+    @Test
+    @DisplayName("Should disable a host batch by batch, caching each batch as disabled at its new version")
+    @SuppressWarnings("unchecked")
+    void shouldDisableHostInBatches() {
+        UrlMapping first = mapping("a1", CREATED.minusDays(1), 10);
+        UrlMapping second = mapping("b2", CREATED, 11);
+        UrlMapping third = mapping("c3", CREATED, 12);
+        when(urlAdminRepository.disableHostBatch(eq("bad.example"), any(), anyInt()))
+                .thenReturn(List.of(first, second), List.of(third), List.of());
+
+        HostDisableReport report = mappingAdminService.disableHost("BAD.example.");
+
+        assertEquals(new HostDisableReport("bad.example", 3, 2, report.getElapsedMillis()), report);
+        // Each batch resumes from the newest creation time seen, not from the start of the host's links
+        verify(urlAdminRepository, times(2)).disableHostBatch("bad.example", CREATED, 2);
+        ArgumentCaptor<Map<String, CachedUrl>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(urlMappingCache, times(2)).putAll(batches.capture());
+        assertEquals(List.of("a1", "b2"), List.copyOf(batches.getAllValues().get(0).keySet()));
+        CachedUrl cached = batches.getAllValues().get(1).get("c3");
+        assertTrue(cached.hasFlag(CachedUrl.FLAG_DISABLED));
+        assertEquals(12, cached.version());
+    }
+
+    @Test
+    @DisplayName("Should promote archived links to the host already disabled")
+    void shouldPromoteArchivedLinksDisabled() {
+        CachedUrl restored = new CachedUrl("https://bad.example/old1", CachedUrl.NO_EXPIRY, CachedUrl.FLAG_DISABLED, null, 20);
+        when(urlArchiveRepository.findCodesForHost("bad.example", "", 2)).thenReturn(List.of("old1", "old2"));
+        when(urlArchiveRepository.findCodesForHost("bad.example", "old2", 2)).thenReturn(List.of());
+        when(urlArchiveRepository.promote("old1", true)).thenReturn(Optional.of(restored));
+        when(urlArchiveRepository.promote("old2", true)).thenReturn(Optional.empty()); // Archived entry was unreadable
+        when(urlAdminRepository.disableHostBatch(eq("bad.example"), any(), anyInt())).thenReturn(List.of());
+
+        HostDisableReport report = mappingAdminService.disableHost("bad.example");
+
+        assertEquals(1, report.getDisabled());
+        assertEquals(1, report.getBatches());
+        verify(urlArchiveRepository, never()).promote(anyString()); // Never restored enabled, even briefly
+        verify(urlMappingCache, times(1)).putAll(Map.of("old1", restored));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid host before touching the database")
+    void shouldRejectInvalidHost() {
+        assertThrows(IllegalArgumentException.class, () -> mappingAdminService.disableHost("not a host"));
+
+        verifyNoInteractions(urlAdminRepository, urlArchiveRepository, urlMappingCache);
+    }
+
+    private static UrlMapping mapping(String shortCode, LocalDateTime createdAt, long version) {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(shortCode);
+        urlMapping.setLongUrl("https://bad.example/" + shortCode);
+        urlMapping.setDestinationHost("bad.example");
+        urlMapping.setCreatedAt(createdAt);
+        urlMapping.setVersion(version);
+        urlMapping.setDisabled(true);
+        return urlMapping;
+    }
+}
@@ -1,26 +1,43 @@
 package com.afsar.url.shortener.service;
 
+import com.afsar.url.shortener.cache.CachedUrl;
+import com.afsar.url.shortener.cache.UrlMappingCache;
 import com.afsar.url.shortener.exception.ShortCodeAlreadyExistsException;
 import com.afsar.url.shortener.exception.UrlNotFoundException;
+import com.afsar.url.shortener.exception.VersionMismatchException;
 import com.afsar.url.shortener.model.UrlMapping;
+import com.afsar.url.shortener.repository.UrlArchiveRepository;
+import com.afsar.url.shortener.repository.UrlLookupRepository;
 import com.afsar.url.shortener.repository.UrlMappingRepository;
+import com.afsar.url.shortener.repository.UrlMutationRepository;
+import com.afsar.url.shortener.routing.RoutingSpec;
+import com.afsar.url.shortener.routing.RoutingTable;
+import com.afsar.url.shortener.tiering.AccessTracker;
+import com.afsar.url.shortener.util.UrlCanonicalizer;
+import com.afsar.url.shortener.writebehind.WriteBehindShortener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,20 +48,38 @@ class UrlShortenerServiceTest {
     private UrlMappingRepository urlMappingRepository;
 
     @Mock
-    private RedisTemplate<String, String> redisTemplate;
+    private UrlLookupRepository urlLookupRepository;
 
     @Mock
-    private ValueOperations<String, String> valueOperations; // Mock Redis ValueOperations
+    private UrlMutationRepository urlMutationRepository;
+
+    @Mock
+    private UrlMappingCache urlMappingCache;
+
+    @Mock
+    private AliasAvailabilityService aliasAvailabilityService;
+
+    @Mock
+    private WriteBehindShortener writeBehindShortener;
+
+    @Mock
+    private UrlArchiveRepository urlArchiveRepository;
+
+    @Mock
+    private AccessTracker accessTracker;
+
+    @Spy
+    private UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer(List.of("blocked.example"));
 
     @InjectMocks
     private UrlShortenerService urlShortenerService;
 
     @BeforeEach
     void setUp() {
-        // Mock RedisTemplate's opsForValue() to return our mock valueOperations
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         // Inject shortCodeLength value using ReflectionTestUtils
         ReflectionTestUtils.setField(urlShortenerService, "shortCodeLength", 6);
+        // No alias is reserved by someone else unless a test says so
+        lenient().when(aliasAvailabilityService.isReservationHonored(anyString(), any())).thenReturn(true);
     }
 
     @Test
@@ -58,7 +93,7 @@ class UrlShortenerServiceTest {
         newMapping.setCreatedAt(LocalDateTime.now());
         newMapping.setClicks(0);
 
-        when(urlMappingRepository.findByLongUrl(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
         when(urlMappingRepository.count()).thenReturn(0L); // Simulate initial count for ID generation
         when(urlMappingRepository.existsByShortCode(anyString())).thenReturn(false); // No collision
         when(urlMappingRepository.save(any(UrlMapping.class))).thenReturn(newMapping);
@@ -69,7 +104,26 @@ class UrlShortenerServiceTest {
         assertEquals(expectedShortCode, result.getShortCode());
         assertEquals(longUrl, result.getLongUrl());
         verify(urlMappingRepository, times(1)).save(any(UrlMapping.class));
-        verify(valueOperations, times(1)).set(expectedShortCode, longUrl); // Verify cache update
+        verify(urlMappingCache, times(1)).put(eq(expectedShortCode), eq(new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0))); // Verify cache update
+    }
+
+    @Test
+    @DisplayName("Should store normalized routing and never dedup a routed link")
+    void shouldShortenRoutedLink() {
+        String longUrl = "https://www.existing-site.com";
+        RoutingSpec routing = new RoutingSpec(List.of(new RoutingSpec.Rule(List.of("mobile"), null, List.of("de"),
+                List.of(new RoutingSpec.Target("HTTPS://M.Example.com/", null)))), null);
+        when(urlMappingRepository.existsByShortCode(anyString())).thenReturn(false);
+        when(urlMappingRepository.save(any(UrlMapping.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UrlMapping result = urlShortenerService.shortenUrl(longUrl, "routed", null, null, routing);
+
+        verify(urlMappingRepository, never()).findReusable(anyString()); // Same long URL may exist unrouted
+        RoutingTable table = RoutingTable.compiled(result.getRoutingRules());
+        assertEquals("https://m.example.com/", table.choose("Mozilla/5.0 (iPhone) Mobile", null, "de"));
+        assertNull(table.choose("Mozilla/5.0 (iPhone) Mobile", null, "FR"));
+        verify(urlMappingCache, times(1)).put(eq("routed"),
+                eq(new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0, RoutingTable.compiled(result.getRoutingRules()))));
     }
 
     @Test
@@ -81,7 +135,7 @@ class UrlShortenerServiceTest {
         existingMapping.setLongUrl(longUrl);
         existingMapping.setShortCode(existingShortCode);
 
-        when(urlMappingRepository.findByLongUrl(longUrl)).thenReturn(Optional.of(existingMapping));
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.of(existingMapping));
 
         UrlMapping result = urlShortenerService.shortenUrl(longUrl, null, null);
 
@@ -89,7 +143,7 @@ class UrlShortenerServiceTest {
         assertEquals(existingShortCode, result.getShortCode());
         assertEquals(longUrl, result.getLongUrl());
         verify(urlMappingRepository, never()).save(any(UrlMapping.class)); // Should not save new entry
-        verify(valueOperations, never()).set(anyString(), anyString()); // Should not touch cache
+        verify(urlMappingCache, never()).put(anyString(), any(CachedUrl.class)); // Should not touch cache
     }
 
     @Test
@@ -105,6 +159,33 @@ class UrlShortenerServiceTest {
         verify(urlMappingRepository, never()).save(any(UrlMapping.class));
     }
 
+    @Test
+    @DisplayName("Should dedup URLs that differ only in non-canonical spelling")
+    void shouldDedupEquivalentUrlSpellings() {
+        String canonicalUrl = "https://www.existing-site.com/a";
+        UrlMapping existingMapping = new UrlMapping();
+        existingMapping.setLongUrl(canonicalUrl);
+        existingMapping.setShortCode("existS");
+
+        when(urlMappingRepository.findReusable(canonicalUrl)).thenReturn(Optional.of(existingMapping));
+
+        UrlMapping result = urlShortenerService.shortenUrl("HTTPS://WWW.Existing-Site.com:443/%61", null, null);
+
+        assertEquals("existS", result.getShortCode());
+        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
+    }
+
+    @Test
+    @DisplayName("Should reject URLs pointing at a blocked host")
+    void shouldRejectBlockedHost() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            urlShortenerService.shortenUrl("https://phish.blocked.example/login", null, null);
+        });
+
+        assertTrue(exception.getMessage().contains("not allowed"));
+        verify(urlMappingRepository, never()).findReusable(anyString());
+    }
+
     @Test
     @DisplayName("Should use custom short code if provided and unique")
     void shouldUseCustomShortCodeIfUnique() {
@@ -115,7 +196,7 @@ class UrlShortenerServiceTest {
         newMapping.setShortCode(customShortCode);
         newMapping.setCreatedAt(LocalDateTime.now());
 
-        when(urlMappingRepository.findByLongUrl(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
         when(urlMappingRepository.existsByShortCode(customShortCode)).thenReturn(false);
         when(urlMappingRepository.save(any(UrlMapping.class))).thenReturn(newMapping);
 
@@ -124,6 +205,55 @@ class UrlShortenerServiceTest {
         assertNotNull(result);
         assertEquals(customShortCode, result.getShortCode());
         verify(urlMappingRepository, times(1)).save(any(UrlMapping.class));
+        verify(aliasAvailabilityService, times(1)).markTaken(customShortCode); // Other replicas learn the alias is gone
+    }
+
+    @Test
+    @DisplayName("Should log and cache instead of inserting in write-behind mode")
+    void shouldLogAndCacheInWriteBehindMode() {
+        String longUrl = "https://www.example.org/campaign";
+
+        when(writeBehindShortener.isEnabled()).thenReturn(true);
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.existsByShortCode(anyString())).thenReturn(false);
+        when(urlMappingCache.putIfAbsent(anyString(), any(CachedUrl.class))).thenReturn(true);
+
+        UrlMapping result = urlShortenerService.shortenUrl(longUrl, null, null);
+
+        assertEquals(longUrl, result.getLongUrl());
+        assertNotNull(result.getCreatedAt());
+        verify(writeBehindShortener, times(1)).append(result);
+        verify(urlMappingCache, times(1)).putIfAbsent(result.getShortCode(), new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0));
+        verify(urlMappingRepository, never()).save(any(UrlMapping.class)); // The drainer inserts later
+    }
+
+    @Test
+    @DisplayName("Should serve an undrained write-behind mapping when the cache misses")
+    void shouldServeUndrainedMappingOnCacheMiss() {
+        String shortCode = "pendng";
+        when(writeBehindShortener.findPending(shortCode)).thenReturn(new CachedUrl("https://www.pending.com", CachedUrl.NO_EXPIRY, 0));
+
+        String result = urlShortenerService.getLongUrl(shortCode);
+
+        assertEquals("https://www.pending.com", result);
+        verify(urlLookupRepository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject a custom short code reserved by another caller")
+    void shouldRejectCustomShortCodeReservedByAnotherCaller() {
+        String longUrl = "https://www.example.org/reserved";
+        String customShortCode = "launch";
+
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
+        when(aliasAvailabilityService.isReservationHonored(customShortCode, "other-token")).thenReturn(false);
+
+        Exception exception = assertThrows(ShortCodeAlreadyExistsException.class, () -> {
+            urlShortenerService.shortenUrl(longUrl, customShortCode, null, "other-token");
+        });
+
+        assertTrue(exception.getMessage().contains("is reserved"));
+        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
     }
 
     @Test
@@ -132,7 +262,7 @@ class UrlShortenerServiceTest {
         String longUrl = "https://www.example.org/another";
         String customShortCode = "existing";
 
-        when(urlMappingRepository.findByLongUrl(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
         when(urlMappingRepository.existsByShortCode(customShortCode)).thenReturn(true);
 
         Exception exception = assertThrows(ShortCodeAlreadyExistsException.class, () -> {
@@ -143,26 +273,66 @@ class UrlShortenerServiceTest {
         verify(urlMappingRepository, never()).save(any(UrlMapping.class));
     }
 
+    @Test
+    @DisplayName("Should treat a custom short code held by an archived link as taken")
+    void shouldRejectCustomShortCodeHeldByArchivedLink() {
+        String longUrl = "https://www.example.org/archived";
+        String customShortCode = "oldLink";
+
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.existsByShortCode(customShortCode)).thenReturn(false);
+        when(urlArchiveRepository.isArchived(customShortCode)).thenReturn(true);
+
+        assertThrows(ShortCodeAlreadyExistsException.class, () -> urlShortenerService.shortenUrl(longUrl, customShortCode, null));
+
+        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an overlong or non-Base62 custom short code before claiming it")
+    void shouldRejectInvalidCustomShortCode() {
+        String longUrl = "https://www.example.org/invalid";
+
+        assertThrows(IllegalArgumentException.class, () -> urlShortenerService.shortenUrl(longUrl, "elevenchars", null));
+        assertThrows(IllegalArgumentException.class, () -> urlShortenerService.shortenUrl(longUrl, "my-link", null));
+        assertThrows(IllegalArgumentException.class, () -> urlShortenerService.shortenUrl(longUrl, "café", null));
+
+        verify(urlMappingCache, never()).putIfAbsent(anyString(), any(CachedUrl.class));
+        verify(writeBehindShortener, never()).append(any(UrlMapping.class));
+        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
+    }
+
     @Test
     @DisplayName("Should retrieve long URL and increment clicks")
     void shouldRetrieveLongUrlAndIncrementClicks() {
         String shortCode = "myCode";
         String longUrl = "https://www.destination.com";
-        UrlMapping existingMapping = new UrlMapping();
-        existingMapping.setShortCode(shortCode);
-        existingMapping.setLongUrl(longUrl);
-        existingMapping.setClicks(5); // Initial clicks
-        existingMapping.setCreatedAt(LocalDateTime.now());
+        CachedUrl stored = new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0);
 
-        when(urlMappingRepository.findById(shortCode)).thenReturn(Optional.of(existingMapping));
-        // Mock the save operation after click increment
-        when(urlMappingRepository.save(any(UrlMapping.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(urlLookupRepository.findByShortCode(shortCode)).thenReturn(Optional.of(stored));
 
         String result = urlShortenerService.getLongUrl(shortCode);
 
         assertEquals(longUrl, result);
-        assertEquals(6, existingMapping.getClicks()); // Verify clicks incremented
-        verify(urlMappingRepository, times(1)).save(existingMapping); // Verify save was called with updated object
+        verify(urlLookupRepository, times(1)).incrementClicks(shortCode); // Verify clicks incremented in place
+        verify(urlMappingCache, times(1)).put(shortCode, stored); // Verify cache populated from the projection
+        verify(urlMappingRepository, never()).findById(anyString()); // No entity hydration on redirects
+    }
+
+    @Test
+    @DisplayName("Should promote an archived link back on access")
+    void shouldPromoteArchivedLinkOnAccess() {
+        String shortCode = "coldLk";
+        CachedUrl archived = new CachedUrl("https://www.cold-destination.com", CachedUrl.NO_EXPIRY, 0);
+
+        when(urlLookupRepository.findByShortCode(shortCode)).thenReturn(Optional.empty());
+        when(urlArchiveRepository.promote(shortCode)).thenReturn(Optional.of(archived));
+
+        String result = urlShortenerService.getLongUrl(shortCode);
+
+        assertEquals("https://www.cold-destination.com", result);
+        verify(urlLookupRepository, times(1)).incrementClicks(shortCode);
+        verify(urlMappingCache, times(1)).put(shortCode, archived);
     }
 
     @Test
@@ -170,14 +340,14 @@ class UrlShortenerServiceTest {
     void shouldThrowExceptionIfShortCodeNotFound() {
         String nonExistentShortCode = "noExist";
 
-        when(urlMappingRepository.findById(nonExistentShortCode)).thenReturn(Optional.empty());
+        when(urlLookupRepository.findByShortCode(nonExistentShortCode)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(UrlNotFoundException.class, () -> {
             urlShortenerService.getLongUrl(nonExistentShortCode);
         });
 
         assertTrue(exception.getMessage().contains("Short URL not found"));
-        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
+        verify(urlLookupRepository, never()).incrementClicks(anyString());
     }
 
     @Test
@@ -185,20 +355,18 @@ class UrlShortenerServiceTest {
     void shouldThrowExceptionIfUrlIsExpired() {
         String shortCode = "expiredC";
         String longUrl = "https://www.expired.com";
-        UrlMapping expiredMapping = new UrlMapping();
-        expiredMapping.setShortCode(shortCode);
-        expiredMapping.setLongUrl(longUrl);
-        expiredMapping.setCreatedAt(LocalDateTime.now().minusDays(2));
-        expiredMapping.setExpiresAt(LocalDateTime.now().minusDays(1)); // Expired yesterday
+        LocalDateTime expiredAt = LocalDateTime.now().minusDays(1); // Expired yesterday
 
-        when(urlMappingRepository.findById(shortCode)).thenReturn(Optional.of(expiredMapping));
+        when(urlLookupRepository.findByShortCode(shortCode))
+                .thenReturn(Optional.of(new CachedUrl(longUrl, CachedUrl.toEpochSecond(expiredAt), 0)));
 
         Exception exception = assertThrows(UrlNotFoundException.class, () -> {
             urlShortenerService.getLongUrl(shortCode);
         });
 
         assertTrue(exception.getMessage().contains("Short URL has expired"));
-        verify(urlMappingRepository, never()).save(any(UrlMapping.class));
+        verify(urlLookupRepository, never()).incrementClicks(anyString());
+        verify(urlMappingCache, never()).put(anyString(), any(CachedUrl.class));
     }
 
     @Test
@@ -212,7 +380,7 @@ class UrlShortenerServiceTest {
         newMapping.setShortCode(expectedShortCode);
         newMapping.setCreatedAt(LocalDateTime.now());
 
-        when(urlMappingRepository.findByLongUrl(longUrl)).thenReturn(Optional.empty());
+        when(urlMappingRepository.findReusable(longUrl)).thenReturn(Optional.empty());
         when(urlMappingRepository.count()).thenReturn(0L);
         when(urlMappingRepository.existsByShortCode(anyString())).thenReturn(false);
         when(urlMappingRepository.save(any(UrlMapping.class))).thenReturn(newMapping);
@@ -225,4 +393,144 @@ class UrlShortenerServiceTest {
         assertTrue(result.getExpiresAt().isBefore(LocalDateTime.now().plusMinutes(11)));
         verify(urlMappingRepository, times(1)).save(any(UrlMapping.class));
     }
+
+    @Test
+    @DisplayName("Should pick a routed target from request attributes")
+    void shouldRouteByRequestAttributes() {
+        String shortCode = "routed";
+        RoutingTable routing = RoutingTable.compiled(RoutingTable.toJson(new RoutingSpec(List.of(new RoutingSpec.Rule(
+                List.of("MOBILE"), List.of(), List.of(), List.of(new RoutingSpec.Target("https://m.example.com/", 1)))), List.of())));
+        when(urlMappingCache.get(shortCode)).thenReturn(new CachedUrl("https://www.example.com/", CachedUrl.NO_EXPIRY, 0, routing));
+
+        assertEquals("https://m.example.com/", urlShortenerService.getLongUrl(shortCode, "Mozilla/5.0 (iPhone) Mobile", null, null));
+        assertEquals("https://www.example.com/", urlShortenerService.getLongUrl(shortCode, "Mozilla/5.0 (X11; Linux)", null, null));
+    }
+
+    @Test
+    @DisplayName("Should serve cached URL without touching the database")
+    void shouldServeCachedUrlWithoutDatabase() {
+        String shortCode = "cachedC";
+        String longUrl = "https://www.cached-destination.com";
+        when(urlMappingCache.get(shortCode)).thenReturn(new CachedUrl(longUrl, CachedUrl.NO_EXPIRY, 0));
+
+        String result = urlShortenerService.getLongUrl(shortCode);
+
+        assertEquals(longUrl, result);
+        verify(urlLookupRepository, never()).findByShortCode(anyString());
+        verify(accessTracker, times(1)).record(shortCode); // Cache hits still count as recent access
+    }
+
+    @Test
+    @DisplayName("Should honour expiry stored in the cached entry")
+    void shouldHonourExpiryOfCachedEntry() {
+        String shortCode = "cachedE";
+        long expiredAt = Instant.now().getEpochSecond() - 60;
+        when(urlMappingCache.get(shortCode)).thenReturn(new CachedUrl("https://www.expired.com", expiredAt, 0));
+
+        Exception exception = assertThrows(UrlNotFoundException.class, () -> {
+            urlShortenerService.getLongUrl(shortCode);
+        });
+
+        assertTrue(exception.getMessage().contains("Short URL has expired"));
+        verify(urlLookupRepository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should cache a changed link at its new version")
+    void shouldCacheUpdatedMappingAtNewVersion() {
+        String shortCode = "chgd01";
+        UrlMapping updated = new UrlMapping();
+        updated.setShortCode(shortCode);
+        updated.setLongUrl("https://www.new-destination.com");
+        updated.setVersion(42);
+        when(urlMutationRepository.update(shortCode, "https://www.new-destination.com", false, null, null, 41L))
+                .thenReturn(Optional.of(updated));
+
+        UrlMapping result = urlShortenerService.updateMapping(shortCode, "HTTPS://WWW.New-Destination.com", null, null, 41L);
+
+        assertSame(updated, result);
+        verify(urlMappingCache, times(1)).put(shortCode,
+                new CachedUrl("https://www.new-destination.com", CachedUrl.NO_EXPIRY, 0, null, 42));
+        verify(urlMappingCache, never()).putAndAwait(anyString(), any(), anyInt(), any()); // No replica acknowledgements configured
+    }
+
+    @Test
+    @DisplayName("Should report the current version when If-Match is stale")
+    void shouldRejectStaleExpectedVersion() {
+        String shortCode = "chgd02";
+        when(urlMutationRepository.update(eq(shortCode), any(), anyBoolean(), any(), any(), eq(3L))).thenReturn(Optional.empty());
+        when(urlMutationRepository.findVersion(shortCode)).thenReturn(OptionalLong.of(5));
+
+        VersionMismatchException exception = assertThrows(VersionMismatchException.class,
+                () -> urlShortenerService.updateMapping(shortCode, null, null, true, 3L));
+
+        assertEquals(5, exception.getCurrentVersion());
+        verify(urlMappingCache, never()).put(anyString(), any(CachedUrl.class));
+    }
+
+    @Test
+    @DisplayName("Should leave a tombstone and wait for replicas when a link is deleted")
+    void shouldTombstoneDeletedMapping() {
+        String shortCode = "gone01";
+        ReflectionTestUtils.setField(urlShortenerService, "replicaAcks", 1);
+        ReflectionTestUtils.setField(urlShortenerService, "replicaAckTimeout", Duration.ofMillis(500));
+        when(urlMutationRepository.delete(shortCode, null)).thenReturn(OptionalLong.of(77));
+        when(urlMappingCache.putTombstoneAndAwait(shortCode, 77, 1, Duration.ofMillis(500))).thenReturn(1L);
+
+        assertEquals(77, urlShortenerService.deleteMapping(shortCode, null));
+
+        // The tombstone and the WAIT go out together, so the WAIT covers that write
+        verify(urlMappingCache, times(1)).putTombstoneAndAwait(shortCode, 77, 1, Duration.ofMillis(500));
+        verify(urlMappingCache, never()).putTombstone(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should wait for one replica by default only when cache reads go to replicas")
+    void shouldDefaultReplicaAcksFromCacheReadFrom() {
+        ReflectionTestUtils.setField(urlShortenerService, "configuredReplicaAcks", -1);
+        ReflectionTestUtils.setField(urlShortenerService, "cacheReadFrom", "REPLICA_PREFERRED");
+        urlShortenerService.resolveReplicaAcks();
+        assertEquals(1, ReflectionTestUtils.getField(urlShortenerService, "replicaAcks"));
+
+        ReflectionTestUtils.setField(urlShortenerService, "cacheReadFrom", "UPSTREAM");
+        urlShortenerService.resolveReplicaAcks();
+        assertEquals(0, ReflectionTestUtils.getField(urlShortenerService, "replicaAcks"));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with replica cache reads and no replica acknowledgements")
+    void shouldRejectReplicaReadsWithoutAcks() {
+        ReflectionTestUtils.setField(urlShortenerService, "configuredReplicaAcks", 0);
+        ReflectionTestUtils.setField(urlShortenerService, "cacheReadFrom", "REPLICA_PREFERRED");
+
+        assertThrows(IllegalStateException.class, () -> urlShortenerService.resolveReplicaAcks());
+    }
+
+    @Test
+    @DisplayName("Should answer deleted and disabled links from the cache without touching the database")
+    void shouldRefuseTombstonedAndDisabledLinksFromCache() {
+        when(urlMappingCache.get("gone02")).thenReturn(CachedUrl.tombstone(9));
+        when(urlMappingCache.get("off001")).thenReturn(
+                new CachedUrl("https://www.example.com", CachedUrl.NO_EXPIRY, CachedUrl.FLAG_DISABLED, null, 9));
+
+        assertThrows(UrlNotFoundException.class, () -> urlShortenerService.getLongUrl("gone02"));
+        Exception exception = assertThrows(UrlNotFoundException.class, () -> urlShortenerService.getLongUrl("off001"));
+
+        assertTrue(exception.getMessage().contains("disabled"));
+        verify(urlLookupRepository, never()).findByShortCode(anyString());
+        verify(accessTracker, never()).record(anyString());
+    }
+
+    @Test
+    @DisplayName("Should cache a disabled link loaded from the database without counting a click")
+    void shouldCacheDisabledLinkWithoutClick() {
+        String shortCode = "off002";
+        CachedUrl disabled = new CachedUrl("https://www.example.com", CachedUrl.NO_EXPIRY, CachedUrl.FLAG_DISABLED, null, 12);
+        when(urlLookupRepository.findByShortCode(shortCode)).thenReturn(Optional.of(disabled));
+
+        assertThrows(UrlNotFoundException.class, () -> urlShortenerService.getLongUrl(shortCode));
+
+        verify(urlMappingCache, times(1)).put(shortCode, disabled);
+        verify(urlLookupRepository, never()).incrementClicks(anyString());
+    }
 }
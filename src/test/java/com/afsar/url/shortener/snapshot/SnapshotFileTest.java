@@ -0,0 +1,111 @@
+package com.afsar.url.shortener.snapshot;
+
+import com.afsar.url.shortener.cache.CachedUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Snapshot file Unit Tests")
+class SnapshotFileTest {
+
+    private static final long AS_OF = 1_700_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should find every exported code and reject codes that were not exported")
+    void shouldLookUpEveryRecord() throws IOException {
+        Path file = writeSnapshot(10_000);
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertEquals(10_000, reader.size());
+            assertEquals(AS_OF, reader.asOfEpochSecond());
+            for (int i = 0; i < 10_000; i++) {
+                CachedUrl cachedUrl = reader.lookup(code(i));
+                assertNotNull(cachedUrl, code(i));
+                assertEquals(url(i), cachedUrl.longUrl());
+                assertEquals(expiry(i), cachedUrl.expiresAtEpochSecond());
+            }
+            for (int i = 0; i < 1_000; i++) {
+                assertNull(reader.lookup("missing" + i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should handle an empty snapshot")
+    void shouldHandleEmptySnapshot() throws IOException {
+        Path file = writeSnapshot(0);
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertEquals(0, reader.size());
+            assertNull(reader.lookup("anything"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should overlay deltas on the snapshot and drop expired links")
+    void shouldApplyDeltas() throws IOException {
+        Path file = writeSnapshot(100);
+        Path delta = directory.resolve("delta-1.usdl");
+        try (SnapshotDeltaWriter writer = new SnapshotDeltaWriter(delta, AS_OF, AS_OF + 60)) {
+            writer.upsert("fresh1", "https://www.example.com/fresh", CachedUrl.NO_EXPIRY);
+            writer.remove(code(1));
+        }
+
+        try (EdgeSnapshotStore store = EdgeSnapshotStore.open(file)) {
+            assertNull(store.lookup("fresh1", AS_OF));
+
+            store.applyDelta(delta);
+
+            assertEquals(AS_OF + 60, store.appliedThroughEpochSecond());
+            assertEquals("https://www.example.com/fresh", store.lookup("fresh1", AS_OF).longUrl());
+            assertNull(store.lookup(code(1), AS_OF)); // Removed by the delta
+            assertEquals(url(2), store.lookup(code(2), AS_OF).longUrl());
+            assertNull(store.lookup(code(2), expiry(2))); // Expired at lookup time
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse a delta that leaves a gap")
+    void shouldRejectDeltaGap() throws IOException {
+        Path file = writeSnapshot(10);
+        Path delta = directory.resolve("delta-gap.usdl");
+        try (SnapshotDeltaWriter writer = new SnapshotDeltaWriter(delta, AS_OF + 60, AS_OF + 120)) {
+            writer.upsert("late1", "https://www.example.com/late", CachedUrl.NO_EXPIRY);
+        }
+
+        try (EdgeSnapshotStore store = EdgeSnapshotStore.open(file)) {
+            assertThrows(IllegalStateException.class, () -> store.applyDelta(delta));
+            assertNull(store.lookup("late1", AS_OF));
+        }
+    }
+
+    private Path writeSnapshot(int records) throws IOException {
+        Path file = directory.resolve("snapshot-" + records + ".usnp");
+        try (SnapshotWriter writer = new SnapshotWriter(file, AS_OF)) {
+            for (int i = 0; i < records; i++) {
+                writer.add(code(i), url(i), expiry(i));
+            }
+        }
+        return file;
+    }
+
+    private static String code(int i) {
+        return "c" + Integer.toString(i, 36);
+    }
+
+    private static String url(int i) {
+        return "https://www.example.com/articles/" + i;
+    }
+
+    private static long expiry(int i) {
+        return i % 3 == 0 ? CachedUrl.NO_EXPIRY : AS_OF + 3_600 + i;
+    }
+}
@@ -0,0 +1,53 @@
+package com.afsar.url.shortener.tiering;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ArchiveBlockCodec Unit Tests")
+class ArchiveBlockCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip every field of every mapping")
+    void shouldRoundTrip() {
+        List<ArchivedMapping> mappings = List.of(
+                new ArchivedMapping("abc", "https://www.example.com/a", 1_700_000_000L, 0, 42),
+                new ArchivedMapping("xyz", "http://例え.jp/パス", 1_700_000_100L, 1_900_000_000L, 0));
+
+        assertEquals(mappings, ArchiveBlockCodec.decode(ArchiveBlockCodec.encode(mappings)));
+    }
+
+    @Test
+    @DisplayName("Should find a mapping by code and miss codes not in the block")
+    void shouldFindByCode() {
+        byte[] block = ArchiveBlockCodec.encode(sampleBlock(256));
+
+        assertEquals("https://www.example.com/products/item-100?ref=archive", ArchiveBlockCodec.find(block, "c100").longUrl());
+        assertNull(ArchiveBlockCodec.find(block, "c999"));
+    }
+
+    @Test
+    @DisplayName("Should compress a block of similar URLs well below their raw size")
+    void shouldCompressSimilarUrls() {
+        List<ArchivedMapping> mappings = sampleBlock(256);
+        int rawUrlBytes = mappings.stream().mapToInt(m -> m.longUrl().getBytes(StandardCharsets.UTF_8).length).sum();
+
+        byte[] block = ArchiveBlockCodec.encode(mappings);
+
+        assertTrue(block.length < rawUrlBytes / 3, "block is " + block.length + " bytes for " + rawUrlBytes + " URL bytes");
+    }
+
+    private static List<ArchivedMapping> sampleBlock(int size) {
+        List<ArchivedMapping> mappings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            mappings.add(new ArchivedMapping("c" + i, "https://www.example.com/products/item-" + i + "?ref=archive",
+                    1_700_000_000L + i, 0, i % 7));
+        }
+        return mappings;
+    }
+}
@@ -0,0 +1,65 @@
+package com.afsar.url.shortener.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FrontCodedStringSet Unit Tests")
+class FrontCodedStringSetTest {
+
+    @Test
+    @DisplayName("Should find every added value across block boundaries")
+    void shouldFindEveryAddedValue() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            codes.add(Base62Encoder.encode(1_000_000L + i * 7L));
+        }
+        Collections.sort(codes);
+        FrontCodedStringSet.Builder builder = FrontCodedStringSet.builder();
+        codes.forEach(builder::add);
+
+        FrontCodedStringSet set = builder.build();
+
+        assertEquals(codes.size(), set.size());
+        for (String code : codes) {
+            assertTrue(set.contains(code), code);
+        }
+        assertFalse(set.contains(Base62Encoder.encode(1_000_001L)));
+        assertFalse(set.contains(""));
+        assertFalse(set.contains("zzzzzzzzzz"));
+    }
+
+    @Test
+    @DisplayName("Should distinguish values that are prefixes of each other")
+    void shouldDistinguishPrefixes() {
+        FrontCodedStringSet set = FrontCodedStringSet.builder().add("abc").add("abcd").add("abd").build();
+
+        assertTrue(set.contains("abc"));
+        assertTrue(set.contains("abcd"));
+        assertFalse(set.contains("ab"));
+        assertFalse(set.contains("abce"));
+    }
+
+    @Test
+    @DisplayName("Should ignore duplicates and reject out-of-order values")
+    void shouldRejectOutOfOrderValues() {
+        FrontCodedStringSet.Builder builder = FrontCodedStringSet.builder().add("b").add("b");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add("a"));
+        assertEquals(1, builder.build().size());
+    }
+
+    @Test
+    @DisplayName("Should answer false on an empty set")
+    void shouldHandleEmptySet() {
+        FrontCodedStringSet set = FrontCodedStringSet.builder().build();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains("abc"));
+    }
+}
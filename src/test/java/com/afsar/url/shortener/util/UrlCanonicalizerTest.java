@@ -0,0 +1,114 @@
+package com.afsar.url.shortener.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UrlCanonicalizer Unit Tests")
+class UrlCanonicalizerTest {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of("Blocked.example"));
+
+    @Test
+    @DisplayName("Should return canonical input as the same instance")
+    void shouldReturnCanonicalInputUnchanged() {
+        String url = "https://www.google.com/search?q=junit+mockito+cucumber#top";
+
+        assertSame(url, canonicalizer.canonicalize(url));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "HTTP://Example.COM/a, http://example.com/a",
+            "http://example.com:80/a, http://example.com/a",
+            "https://example.com:443, https://example.com",
+            "https://example.com:/a, https://example.com/a",
+            "https://example.com:8443/a, https://example.com:8443/a",
+            "http://example.com/%7euser/%2f, http://example.com/~user/%2F",
+            "https://example.com/{x}|, https://example.com/%7Bx%7D%7C",
+            "https://example.com/a#b#c, https://example.com/a#b%23c",
+            "http://1.2.3.4:8080/x, http://1.2.3.4:8080/x",
+            "http://[::1]:8080/, http://[::1]:8080/"
+    })
+    @DisplayName("Should canonicalize scheme, host, port and percent-encoding")
+    void shouldCanonicalize(String input, String expected) {
+        assertEquals(expected, canonicalizer.canonicalize(input));
+    }
+
+    @Test
+    @DisplayName("Should convert internationalized hosts and paths to ASCII")
+    void shouldEncodeNonAscii() {
+        assertEquals("https://xn--r8jz45g.jp/%E3%83%91%E3%82%B9?q=%C3%BC",
+                canonicalizer.canonicalize("https://例え.jp/パス?q=ü"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "invalid-url-format",
+            "ftp://example.com/file",
+            "https://",
+            "http://localhost/",
+            "http://1.2.3.256/",
+            "http://x.c/",
+            "http://-a.com/",
+            "https://user@example.com/",
+            "https://example.com:0/",
+            "https://example.com:65536/",
+            "https://example.com/a b",
+            "https://example.com/%zz",
+            "https://example.com/%4"
+    })
+    @DisplayName("Should reject malformed URLs")
+    void shouldRejectMalformedUrls(String url) {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize(url));
+
+        assertTrue(exception.getMessage().contains("Invalid URL format"));
+    }
+
+    @Test
+    @DisplayName("Should reject URLs longer than the long_url column")
+    void shouldRejectOverlongUrls() {
+        String url = "https://example.com/" + "a".repeat(UrlCanonicalizer.MAX_URL_LENGTH);
+
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize(url));
+    }
+
+    @Test
+    @DisplayName("Should block listed hosts and their subdomains only")
+    void shouldBlockListedHosts() {
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize("https://blocked.example/x"));
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize("https://WWW.Blocked.Example/x"));
+        assertEquals("https://notblocked.example/x", canonicalizer.canonicalize("https://notblocked.example/x"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://Example.COM/a, example.com",
+            "http://example.com:8080?q=1, example.com",
+            "https://user:pw@Example.com:8443/x, example.com",
+            "http://[::1]:8080/, [::1]",
+            "https://xn--r8jz45g.jp#top, xn--r8jz45g.jp"
+    })
+    @DisplayName("Should extract the lowercased host without userinfo or port")
+    void shouldExtractHost(String url, String expected) {
+        assertEquals(expected, UrlCanonicalizer.hostOf(url));
+    }
+
+    @Test
+    @DisplayName("Should normalize operator-supplied hosts to the stored form")
+    void shouldNormalizeHost() {
+        assertNull(UrlCanonicalizer.hostOf("not a url"));
+        assertEquals("bad.example", UrlCanonicalizer.normalizeHost(" Bad.Example. "));
+        assertEquals("xn--r8jz45g.jp", UrlCanonicalizer.normalizeHost("例え.jp"));
+        assertEquals(UrlCanonicalizer.hostOf(canonicalizer.canonicalize("https://例え.jp/")),
+                UrlCanonicalizer.normalizeHost("例え.jp"));
+        assertThrows(IllegalArgumentException.class, () -> UrlCanonicalizer.normalizeHost("bad host"));
+        assertThrows(IllegalArgumentException.class, () -> UrlCanonicalizer.normalizeHost(""));
+    }
+}
@@ -0,0 +1,143 @@
+package com.afsar.url.shortener.writebehind;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShortenLog Unit Tests")
+class ShortenLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay every record after the checkpoint in sequence order")
+    void shouldReplayRecordsAfterCheckpoint() throws IOException {
+        try (ShortenLog shortenLog = ShortenLog.open(directory, 1024 * 1024, mapping -> { })) {
+            for (int i = 0; i < 10; i++) {
+                shortenLog.append("code" + i, "https://www.example.com/" + i, 1_700_000_000_000L + i, 0);
+            }
+            shortenLog.checkpoint(3);
+        }
+
+        List<LoggedMapping> replayed = new ArrayList<>();
+        try (ShortenLog reopened = ShortenLog.open(directory, 1024 * 1024, replayed::add)) {
+            LoggedMapping next = reopened.append("code10", "https://www.example.com/10", 1_700_000_000_010L, 0);
+            assertEquals(10, next.sequence()); // Sequence numbers continue after a restart
+        }
+
+        assertEquals(6 + 1, replayed.size()); // Six undrained records, then the new append
+        assertEquals(4, replayed.get(0).sequence());
+        assertEquals("code4", replayed.get(0).shortCode());
+        assertEquals("https://www.example.com/9", replayed.get(5).longUrl());
+        assertEquals(10, replayed.get(6).sequence());
+    }
+
+    @Test
+    @DisplayName("Should drop a torn tail and keep the records before it")
+    void shouldDropTornTail() throws IOException {
+        try (ShortenLog shortenLog = ShortenLog.open(directory, 1024 * 1024, mapping -> { })) {
+            shortenLog.append("first", "https://www.example.com/1", 1L, 0);
+            shortenLog.append("second", "https://www.example.com/2", 2L, 1_900_000_000L);
+        }
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND); // Half-written record
+
+        List<LoggedMapping> replayed = new ArrayList<>();
+        try (ShortenLog reopened = ShortenLog.open(directory, 1024 * 1024, replayed::add)) {
+            assertEquals(2, replayed.size());
+            assertEquals(1_900_000_000L, replayed.get(1).expiresAtEpochSecond());
+        }
+    }
+
+    @Test
+    @DisplayName("Should group-commit concurrent appends and delete drained segments")
+    void shouldGroupCommitAndDeleteDrainedSegments() throws Exception {
+        List<LoggedMapping> durable = new ArrayList<>();
+        try (ShortenLog shortenLog = ShortenLog.open(directory, 512, mapping -> {
+            synchronized (durable) {
+                durable.add(mapping);
+            }
+        })) {
+            try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+                List<CompletableFuture<LoggedMapping>> appends = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    int n = i;
+                    appends.add(CompletableFuture.supplyAsync(
+                            () -> shortenLog.append("c" + n, "https://www.example.com/" + n, n, 0), executor));
+                }
+                appends.forEach(CompletableFuture::join);
+            }
+            assertEquals(200, durable.size());
+            for (int i = 0; i < durable.size(); i++) {
+                assertEquals(i, durable.get(i).sequence()); // Durable callbacks arrive in log order
+            }
+            assertTrue(segments().size() > 1);
+
+            shortenLog.checkpoint(199);
+            assertEquals(1, segments().size()); // Only the active segment is left
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep dead-lettered mappings after the checkpoint drops them from the log")
+    void shouldKeepDeadLetters() throws IOException {
+        try (ShortenLog shortenLog = ShortenLog.open(directory, 1024 * 1024, mapping -> { })) {
+            LoggedMapping rejected = shortenLog.append("bad", "https://www.example.com/bad", 1L, 0);
+            shortenLog.append("good", "https://www.example.com/good", 2L, 0);
+            shortenLog.deadLetter(rejected);
+            shortenLog.checkpoint(1);
+        }
+
+        List<LoggedMapping> replayed = new ArrayList<>();
+        try (ShortenLog reopened = ShortenLog.open(directory, 1024 * 1024, replayed::add)) {
+            assertTrue(replayed.isEmpty()); // The dead-letter file is not a segment
+        }
+        List<LoggedMapping> deadLetters = ShortenLog.readDeadLetters(directory);
+        assertEquals(1, deadLetters.size());
+        assertEquals(new LoggedMapping(0, "bad", "https://www.example.com/bad", 1L, 0), deadLetters.get(0));
+    }
+
+    @Test
+    @DisplayName("Should complete every append racing with close, either durably or with an error")
+    void shouldNotStrandAppendsRacingWithClose() throws Exception {
+        ShortenLog shortenLog = ShortenLog.open(directory, 1024 * 1024, mapping -> { });
+        List<CompletableFuture<LoggedMapping>> appends = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 500; i++) {
+                int n = i;
+                appends.add(CompletableFuture.supplyAsync(
+                        () -> shortenLog.append("c" + n, "https://www.example.com/" + n, n, 0), executor));
+            }
+            shortenLog.close();
+            for (CompletableFuture<LoggedMapping> append : appends) {
+                // Finishing at all is the point; closed appends fail with IllegalStateException
+                append.handle((mapping, failure) -> mapping != null || failure.getCause() instanceof IllegalStateException)
+                        .thenAccept(Assertions::assertTrue)
+                        .get(15, TimeUnit.SECONDS);
+            }
+        }
+        assertThrows(IllegalStateException.class, () -> shortenLog.append("late", "https://www.example.com/late", 1L, 0));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(ShortenLog.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+}